@@ -0,0 +1,49 @@
+package benchmark;
+
+import neuralNetwork.BlobNeuralNetwork;
+import simulator.SimulationConfig;
+import simulator.World;
+
+// Builds worlds of a given size for the benchmarks. Every world uses the same seed, so a benchmark
+// sees the same positions and networks on every run
+final class BenchmarkWorlds {
+
+    private BenchmarkWorlds() {
+    }
+
+    static World create(int population, int mapSize, int foodAmount, int threads) {
+        SimulationConfig config = new SimulationConfig();
+        config.seed = 42;
+        config.mapSize = mapSize;
+        config.maxNumOfBlobs = population;
+        config.foodAmount = foodAmount;
+        config.simulationThreads = threads;
+
+        World world = new World(config);
+        populate(world, population, foodAmount);
+        return world;
+    }
+
+    // Replace the blobs and food of the world with population blobs and foodAmount foods at random
+    // positions. Every blob gets its own copy of the first network
+    static void populate(World world, int population, int foodAmount) {
+        BlobNeuralNetwork template = world.blobNetwork;
+        int mapSize = world.config.mapSize;
+
+        world.blobs.clear();
+        for (int i = 0; i < population; i++) {
+            int x = world.random.nextInt(mapSize);
+            int y = world.random.nextInt(mapSize);
+            world.blobs.add(x, y, world.blobs.addNetwork(template.clone()), world.random.splitSeed());
+        }
+        world.blobGrid.rebuild(world.blobs);
+
+        world.foods.clear();
+        for (int i = 0; i < foodAmount; i++) {
+            world.foods.add(world.random.nextInt(mapSize), world.random.nextInt(mapSize));
+        }
+        world.foodGrid.rebuild(world.foods);
+
+        world.simulationStep = 0;
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.DenseKernel;
+
+// Choosing the actions of a batch of sensor rows with one network: the plain loops, the Vector API
+// kernel and ND4J's model.output (plus the argmax the simulation needs on top of it).
+// The forks get the incubator module so the vector kernel is there. The kernel is chosen once per
+// JVM (DenseKernel.DEFAULT), so the plain loops run in forks that turn the vector kernel off
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Thread)
+public class DenseKernelBenchmark {
+
+    @Param({"1", "32", "256"})
+    public int rows;
+
+    private BlobNeuralNetwork network;
+    private float[] inputs;
+    private INDArray batch;
+    private int[] actions;
+
+    @Setup
+    public void setUp() {
+        network = new BlobNeuralNetwork(25, 18, 11, new Random(42));
+        int numInputs = network.getLayerSizes()[0];
+        Random random = new Random(7);
+        inputs = new float[rows * numInputs];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextFloat();
+        }
+        batch = Nd4j.create(inputs, new long[]{rows, numInputs}, 'c');
+        actions = new int[rows];
+        // create the DL4J model before measuring
+        network.getModel();
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector", "-Dblob.vector=false"})
+    public int[] scalar() {
+        network.predictActions(inputs, 0, rows, actions, 0);
+        return actions;
+    }
+
+    @Benchmark
+    public int[] vector() {
+        if (DenseKernel.DEFAULT != DenseKernel.VECTOR) {
+            throw new IllegalStateException("The Vector API is not available, start the JVM with --add-modules jdk.incubator.vector");
+        }
+        network.predictActions(inputs, 0, rows, actions, 0);
+        return actions;
+    }
+
+    @Benchmark
+    public INDArray nd4j() {
+        return Nd4j.argMax(network.predict(batch), 1);
+    }
+}
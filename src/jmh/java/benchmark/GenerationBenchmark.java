@@ -0,0 +1,67 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import neuralNetwork.BlobNeuralNetwork;
+import simulator.World;
+
+// One whole generation: maxSimulationSteps steps followed by the generation turnover
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class GenerationBenchmark {
+
+    @Param({"30", "300"})
+    public int population;
+
+    @Param({"800", "1600"})
+    public int mapSize;
+
+    @Param({"JAVA", "TENSOR", "ND4J"})
+    public BlobNeuralNetwork.Backend backend;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.create(population, mapSize, 50, threads);
+        world.config.backend = backend;
+    }
+
+    // the population changes at the end of a generation, start every generation from the same one
+    @Setup(Level.Invocation)
+    public void refill() {
+        BenchmarkWorlds.populate(world, population, 50);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public World generation() {
+        world.runGeneration();
+        return world;
+    }
+}
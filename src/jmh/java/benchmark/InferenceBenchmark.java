@@ -0,0 +1,122 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.PopulationInference;
+import neuralNetwork.PopulationTensor;
+import neuralNetwork.QuantizedNetwork;
+import organisms.Blob;
+import simulator.World;
+
+// Choosing actions: one sensor vector through one network, and the whole population at once, with
+// every backend. Every blob has its own network, the worst case for batching
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class InferenceBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int population;
+
+    private World world;
+    private BlobNeuralNetwork network;
+    private INDArray input;
+    private float[] inputVector;
+    private INDArray batch;
+    private float[] rows;
+    private int numInputs;
+    private List<BlobNeuralNetwork> networks;
+    private PopulationTensor tensor;
+    private QuantizedNetwork[] quantized;
+    private int[] actions;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.create(population, 800, 50, 1);
+
+        numInputs = world.config.numOfInputSensors;
+        rows = new float[population * numInputs];
+        networks = new ArrayList<>();
+        for (int i = 0; i < world.blobs.size; i++) {
+            Blob.generateInputVector(world, i, rows, i * numInputs);
+            networks.add(world.blobs.networkOf(i));
+        }
+        batch = Nd4j.create(rows, new long[]{population, numInputs}, 'c');
+
+        network = networks.get(0);
+        inputVector = Arrays.copyOf(rows, numInputs);
+        input = Nd4j.create(inputVector, new long[]{1, numInputs}, 'c');
+        tensor = new PopulationTensor(network.getLayerSizes());
+        tensor.pack(world.blobs.networks, world.blobs.numNetworks);
+        actions = new int[population];
+        quantized = new QuantizedNetwork[population];
+        for (int i = 0; i < population; i++) {
+            quantized[i] = QuantizedNetwork.of(networks.get(i));
+        }
+        // create the DL4J model before measuring
+        network.getModel();
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public INDArray singleNd4j() {
+        return network.predict(input);
+    }
+
+    @Benchmark
+    public int singleJava() {
+        return network.predictAction(inputVector);
+    }
+
+    @Benchmark
+    public int[] populationNd4j() {
+        return PopulationInference.predictActions(batch, networks);
+    }
+
+    @Benchmark
+    public void populationJava(Blackhole blackhole) {
+        for (int i = 0; i < population; i++) {
+            blackhole.consume(networks.get(i).predictAction(rows, i * numInputs));
+        }
+    }
+
+    @Benchmark
+    public void populationQuantized(Blackhole blackhole) {
+        for (int i = 0; i < population; i++) {
+            blackhole.consume(quantized[i].predictAction(rows, i * numInputs));
+        }
+    }
+
+    @Benchmark
+    public int[] populationTensor() {
+        tensor.predictActions(rows, world.blobs.networkIndex, 0, population, actions);
+        return actions;
+    }
+}
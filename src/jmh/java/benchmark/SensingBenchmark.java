@@ -0,0 +1,61 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import organisms.Blob;
+import simulator.World;
+
+// Writing the row of sensors of one blob, for different amounts of food and blobs around it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SensingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int population;
+
+    @Param({"0", "50", "500"})
+    public int foodAmount;
+
+    @Param({"800", "1600"})
+    public int mapSize;
+
+    private World world;
+    private int next = 0;
+    private float[] row;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.create(population, mapSize, foodAmount, 1);
+        row = new float[world.config.numOfInputSensors];
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public float[] generateInputVector() {
+        // go round all blobs, their surroundings differ
+        next = next + 1 < population ? next + 1 : 0;
+        Blob.generateInputVector(world, next, row, 0);
+        return row;
+    }
+}
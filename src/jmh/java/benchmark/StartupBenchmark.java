@@ -0,0 +1,45 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import neuralNetwork.BlobNeuralNetwork;
+import simulator.SimulationConfig;
+import simulator.World;
+
+// Time from a fresh JVM to the end of the first simulation step: a new world with its networks and one
+// step. Every fork measures a single cold run, so the class loading and (for ND4J) the loading of the
+// native backend are part of the time
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Thread)
+public class StartupBenchmark {
+
+    @Param({"JAVA", "ND4J"})
+    public BlobNeuralNetwork.Backend backend;
+
+    @Benchmark
+    public World firstStep() {
+        SimulationConfig config = new SimulationConfig();
+        config.seed = 42;
+        config.simulationThreads = 1;
+        config.backend = backend;
+        World world = new World(config);
+        world.step();
+        world.shutdown();
+        return world;
+    }
+}
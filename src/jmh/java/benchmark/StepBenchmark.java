@@ -0,0 +1,75 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import neuralNetwork.BlobNeuralNetwork;
+import simulator.World;
+
+// One simulation step, every blob senses, decides and acts once. The food is never refilled, so a world
+// that keeps stepping ends up eaten empty with the blobs against the borders. Every invocation starts
+// from freshly placed blobs and food and runs the steps of one generation, the time is per step
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class StepBenchmark {
+
+    @Param({"30", "300", "3000"})
+    public int population;
+
+    @Param({"800", "1600"})
+    public int mapSize;
+
+    @Param({"JAVA", "TENSOR", "QUANTIZED", "ND4J"})
+    public BlobNeuralNetwork.Backend backend;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    // steps of a generation with the default maxSimulationSteps
+    private static final int STEPS = 50;
+
+    private World world;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.create(population, mapSize, 50, threads);
+        world.config.backend = backend;
+    }
+
+    @Setup(Level.Invocation)
+    public void repopulate() {
+        BenchmarkWorlds.populate(world, population, 50);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public World step() {
+        for (int i = 0; i < STEPS; i++) {
+            world.step();
+        }
+        return world;
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+import neuralNetwork.BlobNeuralNetwork;
+import simulator.World;
+
+// Making a mutated copy of a blob's network, the main cost of a generation boundary. The copy is
+// released again like the network of a dead blob, so every copy reuses a pooled network.
+// cloneAndMutateModel is the way clones used to be made, for comparison
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnoverBenchmark {
+
+    private World world;
+    private BlobNeuralNetwork parent;
+
+    @Setup
+    public void setUp() {
+        world = BenchmarkWorlds.create(30, 800, 50, 1);
+        parent = world.blobs.networkOf(0);
+        // clones used to be made from the parent's DL4J model, which every network had
+        parent.getModel();
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.shutdown();
+    }
+
+    @Benchmark
+    public BlobNeuralNetwork mutatedCopy() {
+        BlobNeuralNetwork copy = world.mutatedCopy(parent);
+        world.releaseNetwork(copy);
+        return copy;
+    }
+
+    // A fresh network with its own configuration and DL4J model for every child, which then gets a
+    // clone of the parent's model. The mutation adds to the output weights of the model, after which
+    // the flat weights are read back from it
+    @Benchmark
+    public BlobNeuralNetwork cloneAndMutateModel() {
+        BlobNeuralNetwork copy = new BlobNeuralNetwork(world.config.numOfInputSensors, world.config.numOfHiddenNeurons, world.config.numOfOutputNeurons, world.random);
+        copy.getModel();
+        copy.setModel(parent.getModel().clone());
+
+        INDArray weights = copy.getOutputWeights();
+        weights.addi(Nd4j.rand(weights.shape()).subi(world.config.mutationChangeAmount).muli(world.config.mutationRate));
+        copy.pullParamsFromModel();
+        return copy;
+    }
+}
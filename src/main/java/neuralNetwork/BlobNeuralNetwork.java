@@ -5,109 +5,176 @@ import java.io.IOException;
 import java.util.Random;
 
 import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
-import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
-import org.deeplearning4j.nn.conf.layers.DenseLayer;
-import org.deeplearning4j.nn.conf.layers.OutputLayer;
 import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
-import org.deeplearning4j.nn.weights.WeightInit;
-import org.nd4j.linalg.activations.Activation;
 import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.learning.config.Adam;
-import org.nd4j.linalg.lossfunctions.LossFunctions;
 
 public class BlobNeuralNetwork {
 
+    // Which implementation runs the forward pass, chosen per world with SimulationConfig.backend. JAVA evaluates the network with plain loops
+    // over a flat copy of the weights, TENSOR stacks the networks of the whole population into a
+    // PopulationTensor and runs every blob through its own slice in one pass per layer, QUANTIZED
+    // runs int8 copies of the networks (see QuantizedNetwork), ND4J goes through DL4J and the native backend
+    public enum Backend { ND4J, JAVA, TENSOR, QUANTIZED }
+
+    // The configuration is shared by a network and all of its clones. It is built from the seed and
+    // learning rate the first time the DL4J model is needed, until then DL4J is not loaded at all
+    private MultiLayerConfiguration conf;
     private MultiLayerNetwork model;
-    public static int numInputs;
-    public static int numHiddenNeurons;
-    public static int numOutputs;
+    private final long seed;
+    private final double learningRate;
+
+    // The flat weights are the source of truth, the DL4J model is only created and brought up
+    // to date when it is needed (ND4J inference, training, saving)
+    private JavaForwardPass forwardPass;
+    private boolean modelStale = false;
 
     public BlobNeuralNetwork(int numInputs, int numHiddenNeurons, int numOutputs) {
-        Random random = new Random(System.currentTimeMillis());
+        this(numInputs, numHiddenNeurons, numOutputs, new Random(System.currentTimeMillis()));
+    }
+
+    // The seed and learning rate come from random, so the same random numbers give the same network
+    public BlobNeuralNetwork(int numInputs, int numHiddenNeurons, int numOutputs, Random random) {
         int i = random.nextInt(100000000);
         int j = random.nextInt(100000000);
     
         // Randomize the learning rate during initialization
         double learningRate = random.nextDouble() * 0.2; // You can adjust the range as needed
     
-        MultiLayerConfiguration conf = new NeuralNetConfiguration.Builder()
-                .seed(i + j + 5)
-                .weightInit(WeightInit.XAVIER)
-                .updater(new Adam(learningRate)) // Use the randomized learning rate
-                .list()
-                .layer(new DenseLayer.Builder()
-                        .nIn(numInputs)
-                        .nOut(numHiddenNeurons)
-                        .activation(Activation.RELU)
-                        .build())
-                .layer(new DenseLayer.Builder()
-                        .nIn(numHiddenNeurons)
-                        .nOut(numHiddenNeurons)
-                        .activation(Activation.RELU)
-                        .build())
-                .layer(new DenseLayer.Builder()
-                        .nIn(numHiddenNeurons)
-                        .nOut(numHiddenNeurons)
-                        .activation(Activation.RELU)
-                        .build())
-                .layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
-                        .activation(Activation.SOFTMAX)
-                        .nIn(numHiddenNeurons)
-                        .nOut(numOutputs)
-                        .build())
-                .build();
-    
-        this.model = new MultiLayerNetwork(conf);
-        this.model.init();
+        this.seed = i + j + 5;
+        this.learningRate = learningRate;
+
+        // The weights are drawn in Java like WeightInit.XAVIER would, so no DL4J model is needed for a new network
+        this.forwardPass = new JavaForwardPass(new int[]{numInputs, numHiddenNeurons, numHiddenNeurons, numHiddenNeurons, numOutputs});
+        this.forwardPass.initXavier(new Random(seed));
+    }
+
+    private BlobNeuralNetwork(MultiLayerConfiguration conf, long seed, double learningRate, JavaForwardPass forwardPass) {
+        this.conf = conf;
+        this.seed = seed;
+        this.learningRate = learningRate;
+        this.forwardPass = forwardPass;
     }
     
     // Train the neural network with a single step of simulation data
     public INDArray trainStep(INDArray input, INDArray target) {
-        model.fit(input, target);
+        getModel().fit(input, target);
+        pullParamsFromModel();
         // Assuming the output of the neural network is needed after training
         return model.output(input);
     }
 
     // Predict based on the current state of the neural network
     public INDArray predict(INDArray input) {
-        return model.output(input);
+        return getModel().output(input);
+    }
+
+    // Predict the action (index of the highest output) for a single sensor vector with the Java backend
+    public int predictAction(float[] input) {
+        return forwardPass.predictAction(input);
+    }
+
+    // The same for the row of input that starts at offset
+    public int predictAction(float[] input, int offset) {
+        return forwardPass.predictAction(input, offset);
+    }
+
+    // Actions for count rows of input in a row, see JavaForwardPass.predictActions
+    public void predictActions(float[] input, int offset, int count, int[] actions, int actionsOffset) {
+        forwardPass.predictActions(input, offset, count, actions, actionsOffset);
     }
 
     // Get eh weights of the input layer
+    // If the returned view is changed in place, call pullParamsFromModel() afterwards
     public INDArray getInputWeights() {
-        return model.getLayer(0).getParam("W");
+        return getModel().getLayer(0).getParam("W");
     }
 
     // Get the weights of the output layer
+    // If the returned view is changed in place, call pullParamsFromModel() afterwards
     public INDArray getOutputWeights() {
-        return model.getLayer(3).getParam("W");
+        return getModel().getLayer(3).getParam("W");
+    }
+
+    // The flat weights in MultiLayerNetwork.params() order. Call paramsChanged() after changing them
+    public float[] getParams() {
+        return forwardPass.getParams();
+    }
+
+    public void paramsChanged() {
+        modelStale = true;
     }
 
+    // Copy the weights of the DL4J model into the flat weights, after the model was changed directly
+    public void pullParamsFromModel() {
+        forwardPass = new JavaForwardPass(Dl4jBridge.layerSizes(model));
+        Dl4jBridge.readParams(model, forwardPass.getParams());
+        modelStale = false;
+    }
+
+    // The DL4J model with the latest weights
+    public MultiLayerNetwork getModel() {
+        if (model == null) {
+            if (conf == null) {
+                conf = Dl4jBridge.configuration(forwardPass.getLayerSizes(), seed, learningRate);
+            }
+            model = Dl4jBridge.model(conf, forwardPass.getParams());
+            modelStale = false;
+        } else if (modelStale) {
+            Dl4jBridge.writeParams(forwardPass.getParams(), model);
+            modelStale = false;
+        }
+        return model;
+    }
+
+    // Independent copy of this network. Only the parameters are copied, the configuration is shared
+    // (once there is one) and the DL4J model of the copy is created the first time it is needed
     public BlobNeuralNetwork clone() {
-        try {
-            // Clone the model to create an independent copy
-            MultiLayerNetwork clonedModel = model.clone();
+        return new BlobNeuralNetwork(conf, seed, learningRate, forwardPass.copy());
+    }
 
-            // Create a new BlobNeuralNetwork and set the cloned model
-            BlobNeuralNetwork clonedNetwork = new BlobNeuralNetwork(numInputs, numHiddenNeurons, numOutputs); // Adjust the parameters as needed
-            clonedNetwork.setModel(clonedModel);
+    // Like clone(), but the copy also gets its own configuration so it can be handed to another thread,
+    // e.g. to be saved in the background while this network keeps changing
+    public BlobNeuralNetwork snapshot() {
+        return new BlobNeuralNetwork(conf == null ? null : conf.clone(), seed, learningRate, forwardPass.copy());
+    }
 
-            return clonedNetwork;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null; // Handle the exception appropriately in your application
+    // Overwrite the weights of this network with the weights of another network with the same layers,
+    // used to reuse networks instead of allocating new ones
+    public void copyParamsFrom(BlobNeuralNetwork other) {
+        if (!forwardPass.hasSameLayers(other.forwardPass)) {
+            throw new IllegalArgumentException("Networks have different layer sizes");
         }
+        System.arraycopy(other.getParams(), 0, getParams(), 0, getParams().length);
+        paramsChanged();
+    }
+
+    // Number of inputs followed by the size of every layer
+    public int[] getLayerSizes() {
+        return forwardPass.getLayerSizes();
+    }
+
+    public boolean hasSameLayers(BlobNeuralNetwork other) {
+        return forwardPass.hasSameLayers(other.forwardPass);
     }
 
     public void setModel(MultiLayerNetwork model) {
         this.model = model;
+        this.conf = model.getLayerWiseConfigurations();
+        pullParamsFromModel();
     }
 
     // Save and load methods remain the same
 
     public void saveModel(String path) {
+        saveModel(path, true);
+    }
+
+    // saveUpdater false leaves out the training state of the updater, which evolved networks don't use
+    public void saveModel(String path, boolean saveUpdater) {
         String modelsFolderPath = "models/";
         String fullPath = modelsFolderPath + path;
+        ModelSaveEvent event = new ModelSaveEvent();
+        event.begin();
     
         try {
             // Create the "models" folder if it doesn't exist
@@ -117,10 +184,18 @@ public class BlobNeuralNetwork {
             }
     
             // Save the model in the "models" folder
-            model.save(new File(fullPath), true);
+            getModel().save(new File(fullPath), saveUpdater);
         } catch (IOException e) {
             e.printStackTrace();
         }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = fullPath;
+            event.parameters = getParams().length;
+            event.updaterSaved = saveUpdater;
+            event.commit();
+        }
     }
 
     public void loadModel(String path) {
@@ -129,7 +204,7 @@ public class BlobNeuralNetwork {
     
         try {
             // Load the model from the "models" folder
-            model = MultiLayerNetwork.load(new File(fullPath), true);
+            setModel(MultiLayerNetwork.load(new File(fullPath), true));
         } catch (IOException e) {
             e.printStackTrace();
         }
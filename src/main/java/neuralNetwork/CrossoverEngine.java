@@ -0,0 +1,93 @@
+package neuralNetwork;
+
+import java.util.Random;
+
+// Recombines the flat parameters of two parent networks into a child, without allocating anything.
+// The child is written into an existing parameter array, usually the one of a pooled network
+public class CrossoverEngine {
+
+    public enum Mode {
+        // every parameter comes from either parent with equal chance
+        UNIFORM,
+        // the parameters are cut at k random points and the parents alternate between the cuts
+        K_POINT,
+        // every layer (weights and biases) comes as a whole from either parent
+        PER_LAYER,
+        // every parameter is the same random mix a * male + (1 - a) * female of both parents
+        BLEND
+    }
+
+    private final int[] layerStart;
+    private final int numParams;
+    private final Mode mode;
+    private final int[] points;
+
+    // layerSizes is the layer layout of the networks, see JavaForwardPass.
+    // crossoverPoints is the k of K_POINT and is ignored by the other modes
+    public CrossoverEngine(int[] layerSizes, Mode mode, int crossoverPoints) {
+        this.layerStart = JavaForwardPass.layerOffsets(layerSizes);
+        this.numParams = layerStart[layerStart.length - 1];
+        this.mode = mode;
+        this.points = new int[Math.max(1, crossoverPoints)];
+    }
+
+    // Every parameter of the child is written, whatever it held before does not matter
+    public void cross(float[] male, int maleOffset, float[] female, int femaleOffset, float[] child, int childOffset, Random random) {
+        switch (mode) {
+            case UNIFORM:
+                uniform(male, maleOffset, female, femaleOffset, child, childOffset, random);
+                break;
+            case K_POINT:
+                kPoint(male, maleOffset, female, femaleOffset, child, childOffset, random);
+                break;
+            case PER_LAYER:
+                for (int layer = 0; layer + 1 < layerStart.length; layer++) {
+                    boolean fromMale = random.nextBoolean();
+                    System.arraycopy(fromMale ? male : female, (fromMale ? maleOffset : femaleOffset) + layerStart[layer],
+                            child, childOffset + layerStart[layer], layerStart[layer + 1] - layerStart[layer]);
+                }
+                break;
+            case BLEND:
+                float a = random.nextFloat();
+                for (int i = 0; i < numParams; i++) {
+                    child[childOffset + i] = a * male[maleOffset + i] + (1 - a) * female[femaleOffset + i];
+                }
+                break;
+        }
+    }
+
+    private void uniform(float[] male, int maleOffset, float[] female, int femaleOffset, float[] child, int childOffset, Random random) {
+        // one random long decides 64 parameters
+        long bits = 0;
+        for (int i = 0; i < numParams; i++) {
+            if ((i & 63) == 0) {
+                bits = random.nextLong();
+            }
+            child[childOffset + i] = (bits & 1) == 0 ? male[maleOffset + i] : female[femaleOffset + i];
+            bits >>>= 1;
+        }
+    }
+
+    private void kPoint(float[] male, int maleOffset, float[] female, int femaleOffset, float[] child, int childOffset, Random random) {
+        // draw the cut points and sort them, k is small so insertion sort is enough
+        for (int k = 0; k < points.length; k++) {
+            int point = random.nextInt(numParams);
+            int j = k;
+            while (j > 0 && points[j - 1] > point) {
+                points[j] = points[j - 1];
+                j--;
+            }
+            points[j] = point;
+        }
+
+        int start = 0;
+        boolean fromMale = random.nextBoolean();
+        for (int k = 0; k <= points.length; k++) {
+            int end = k < points.length ? points[k] : numParams;
+            System.arraycopy(fromMale ? male : female, (fromMale ? maleOffset : femaleOffset) + start,
+                    child, childOffset + start, end - start);
+            start = end;
+            fromMale = !fromMale;
+        }
+    }
+}
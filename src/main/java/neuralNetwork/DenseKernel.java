@@ -0,0 +1,90 @@
+package neuralNetwork;
+
+// One dense layer of the forward pass: output[j] = b[j] + the dot product of the input and the weights
+// of output j, optionally followed by ReLU. The parameters use the layout of JavaForwardPass, so the
+// nIn weights of an output are contiguous and the nOut biases follow the weights.
+//
+// VECTOR uses the Vector API (jdk.incubator.vector) and is only there when the JVM was started with
+// --add-modules jdk.incubator.vector, otherwise it is null and the plain loops of SCALAR are used.
+// The two add the products in a different order, so their outputs can differ in the last bits
+public abstract class DenseKernel {
+
+    public static final DenseKernel SCALAR = new ScalarDenseKernel();
+    public static final DenseKernel VECTOR = loadVectorKernel();
+
+    // The kernel every forward pass uses. It is chosen once for the whole process, by the JVM options:
+    // VECTOR when it is available, unless it is turned off with -Dblob.vector=false
+    public static final DenseKernel DEFAULT = VECTOR != null && !"false".equals(System.getProperty("blob.vector")) ? VECTOR : SCALAR;
+
+    public abstract void dense(float[] params, int paramOffset, int nIn, int nOut,
+                               float[] input, int inputOffset, float[] output, int outputOffset, boolean relu);
+
+    // The same layer for several rows at once with the weights stored [in, out] as in PopulationTensor:
+    // the nOut weights that input i feeds are contiguous, and the biases are a separate array. The rows
+    // of input follow each other nIn apart and the rows of output nOut apart. Every weight is read once
+    // for the whole batch (or a tile of it) instead of once per row
+    public abstract void denseInOut(float[] weights, int weightOffset, float[] biases, int biasOffset, int nIn, int nOut,
+                                    float[] input, int inputOffset, int rows, float[] output, int outputOffset, boolean relu);
+
+    public abstract String name();
+
+    // The vector kernel is loaded by name, so its class (and the incubator module) is never touched
+    // when the module is not there
+    private static DenseKernel loadVectorKernel() {
+        if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            return null;
+        }
+        try {
+            return (DenseKernel) Class.forName("neuralNetwork.VectorDenseKernel").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static final class ScalarDenseKernel extends DenseKernel {
+        @Override
+        public void dense(float[] params, int paramOffset, int nIn, int nOut,
+                          float[] input, int inputOffset, float[] output, int outputOffset, boolean relu) {
+            int biasOffset = paramOffset + nIn * nOut;
+            for (int j = 0; j < nOut; j++) {
+                float sum = params[biasOffset + j];
+                int weightOffset = paramOffset + j * nIn;
+                for (int i = 0; i < nIn; i++) {
+                    sum += input[inputOffset + i] * params[weightOffset + i];
+                }
+                output[outputOffset + j] = relu && sum < 0 ? 0 : sum;
+            }
+        }
+
+        @Override
+        public void denseInOut(float[] weights, int weightOffset, float[] biases, int biasOffset, int nIn, int nOut,
+                               float[] input, int inputOffset, int rows, float[] output, int outputOffset, boolean relu) {
+            for (int r = 0; r < rows; r++) {
+                System.arraycopy(biases, biasOffset, output, outputOffset + r * nOut, nOut);
+            }
+            // the weights of input i are applied to every row before moving on to the next input
+            for (int i = 0; i < nIn; i++) {
+                int weightRow = weightOffset + i * nOut;
+                for (int r = 0; r < rows; r++) {
+                    float in = input[inputOffset + r * nIn + i];
+                    int out = outputOffset + r * nOut;
+                    for (int j = 0; j < nOut; j++) {
+                        output[out + j] += in * weights[weightRow + j];
+                    }
+                }
+            }
+            if (relu) {
+                for (int j = outputOffset; j < outputOffset + rows * nOut; j++) {
+                    if (output[j] < 0) {
+                        output[j] = 0;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    }
+}
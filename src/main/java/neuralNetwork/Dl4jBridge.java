@@ -0,0 +1,79 @@
+package neuralNetwork;
+
+import org.deeplearning4j.nn.conf.MultiLayerConfiguration;
+import org.deeplearning4j.nn.conf.NeuralNetConfiguration;
+import org.deeplearning4j.nn.conf.layers.DenseLayer;
+import org.deeplearning4j.nn.conf.layers.FeedForwardLayer;
+import org.deeplearning4j.nn.conf.layers.OutputLayer;
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.deeplearning4j.nn.weights.WeightInit;
+import org.nd4j.linalg.activations.Activation;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.learning.config.Adam;
+import org.nd4j.linalg.lossfunctions.LossFunctions;
+
+// Everything that turns the flat parameters of a network into a DL4J model and back. Only this class
+// (and the methods of BlobNeuralNetwork that hand out DL4J types) touch DL4J, so DL4J and the native
+// ND4J backend are only loaded when a model is really needed: the ND4J backend, training, and saving
+// or loading model zips. The JAVA, TENSOR and QUANTIZED backends never load them
+final class Dl4jBridge {
+
+    private Dl4jBridge() {
+    }
+
+    // Dense ReLU layers followed by a softmax output layer, layerSizes holds the number of inputs
+    // followed by the size of every layer
+    static MultiLayerConfiguration configuration(int[] layerSizes, long seed, double learningRate) {
+        NeuralNetConfiguration.ListBuilder layers = new NeuralNetConfiguration.Builder()
+                .seed(seed)
+                .weightInit(WeightInit.XAVIER)
+                .updater(new Adam(learningRate))
+                .list();
+        int lastLayer = layerSizes.length - 1;
+        for (int layer = 1; layer < lastLayer; layer++) {
+            layers.layer(new DenseLayer.Builder()
+                    .nIn(layerSizes[layer - 1])
+                    .nOut(layerSizes[layer])
+                    .activation(Activation.RELU)
+                    .build());
+        }
+        layers.layer(new OutputLayer.Builder(LossFunctions.LossFunction.MCXENT)
+                .activation(Activation.SOFTMAX)
+                .nIn(layerSizes[lastLayer - 1])
+                .nOut(layerSizes[lastLayer])
+                .build());
+        return layers.build();
+    }
+
+    // A model with the given parameters, init with existing parameters skips the weight initialization
+    static MultiLayerNetwork model(MultiLayerConfiguration conf, float[] params) {
+        MultiLayerNetwork model = new MultiLayerNetwork(conf);
+        model.init(Nd4j.createFromArray(params.clone()).reshape(1, params.length), false);
+        return model;
+    }
+
+    static int[] layerSizes(MultiLayerNetwork model) {
+        int numLayers = model.getnLayers();
+        int[] layerSizes = new int[numLayers + 1];
+        for (int i = 0; i < numLayers; i++) {
+            FeedForwardLayer layer = (FeedForwardLayer) model.getLayer(i).conf().getLayer();
+            if (i == 0) {
+                layerSizes[0] = (int) layer.getNIn();
+            }
+            layerSizes[i + 1] = (int) layer.getNOut();
+        }
+        return layerSizes;
+    }
+
+    static void readParams(MultiLayerNetwork model, float[] params) {
+        float[] modelParams = model.params().toFloatVector();
+        if (modelParams.length != params.length) {
+            throw new IllegalArgumentException("Model has " + modelParams.length + " parameters, expected " + params.length);
+        }
+        System.arraycopy(modelParams, 0, params, 0, params.length);
+    }
+
+    static void writeParams(float[] params, MultiLayerNetwork model) {
+        model.setParams(Nd4j.createFromArray(params).reshape(1, params.length));
+    }
+}
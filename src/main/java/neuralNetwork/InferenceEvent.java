@@ -0,0 +1,23 @@
+package neuralNetwork;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for choosing the actions of a whole population in one step
+@Name("blob.Inference")
+@Label("Population Inference")
+@Category("Blob Simulator")
+@Description("Forward passes of every blob's network for one simulation step")
+@StackTrace(false)
+public class InferenceEvent extends Event {
+
+    @Label("Backend")
+    public String backend;
+
+    @Label("Rows")
+    public int rows;
+}
@@ -0,0 +1,196 @@
+package neuralNetwork;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Forward pass of the blob network in plain Java: ReLU dense layers followed by a softmax output
+// layer, evaluated with loops over a flat float[] of parameters into preallocated scratch buffers.
+//
+// The parameters use the same layout as MultiLayerNetwork.params() so they can be copied to and
+// from a DL4J model as is (see Dl4jBridge). For every layer the weights come first, then the biases, and the
+// weights are stored column major, meaning the nIn weights that feed output j are contiguous
+public class JavaForwardPass {
+
+    // scratch buffers are per thread so blobs sharing a network can be evaluated in parallel
+    private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[0]);
+
+    private final int[] layerSizes;
+    private final float[] params;
+    private final int maxWidth;
+
+    // layerSizes holds the number of inputs followed by the size of every layer, e.g. 25, 18, 18, 18, 11
+    public JavaForwardPass(int[] layerSizes) {
+        this.layerSizes = layerSizes.clone();
+        this.params = new float[numParams(layerSizes)];
+        int width = 0;
+        for (int size : layerSizes) {
+            width = Math.max(width, size);
+        }
+        this.maxWidth = width;
+    }
+
+    public static int numParams(int[] layerSizes) {
+        int count = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            count += layerSizes[layer - 1] * layerSizes[layer] + layerSizes[layer];
+        }
+        return count;
+    }
+
+    // Offset of the parameters of every layer, the last entry is the total amount of parameters
+    public static int[] layerOffsets(int[] layerSizes) {
+        int[] offsets = new int[layerSizes.length];
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            offsets[layer] = offsets[layer - 1] + layerSizes[layer - 1] * layerSizes[layer] + layerSizes[layer];
+        }
+        return offsets;
+    }
+
+    public JavaForwardPass copy() {
+        JavaForwardPass copy = new JavaForwardPass(layerSizes);
+        System.arraycopy(params, 0, copy.params, 0, params.length);
+        return copy;
+    }
+
+    public boolean hasSameLayers(JavaForwardPass other) {
+        return Arrays.equals(layerSizes, other.layerSizes);
+    }
+
+    public int[] getLayerSizes() {
+        return layerSizes.clone();
+    }
+
+    // The live parameter array, changes to it are seen by the next forward pass
+    public float[] getParams() {
+        return params;
+    }
+
+    // Xavier initialization like DL4J's WeightInit.XAVIER: every weight is drawn from a normal
+    // distribution with standard deviation sqrt(2 / (nIn + nOut)) of its layer, the biases start at 0
+    public void initXavier(Random random) {
+        int paramOffset = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            int nIn = layerSizes[layer - 1];
+            int nOut = layerSizes[layer];
+            double deviation = Math.sqrt(2.0 / (nIn + nOut));
+            for (int i = 0; i < nIn * nOut; i++) {
+                params[paramOffset + i] = (float) (random.nextGaussian() * deviation);
+            }
+            Arrays.fill(params, paramOffset + nIn * nOut, paramOffset + nIn * nOut + nOut, 0);
+            paramOffset += nIn * nOut + nOut;
+        }
+    }
+
+    // Index of the highest scoring output. Softmax does not change the order of the outputs
+    // so it is skipped and the argmax is taken over the raw outputs of the last layer
+    public int predictAction(float[] input) {
+        return predictAction(input, 0);
+    }
+
+    // Same as predictAction(input) for the sensor row that starts at inputOffset, so the rows of a
+    // whole population can live in one array
+    public int predictAction(float[] input, int inputOffset) {
+        float[] scratch = scratch(2 * maxWidth);
+        int outputOffset = forward(input, inputOffset, scratch);
+        return argMax(scratch, outputOffset, layerSizes[layerSizes.length - 1]);
+    }
+
+    // Actions for count rows of input that all go through this network, row r starts at
+    // inputOffset + r * the number of inputs. Every layer runs over the whole batch before the next
+    // one starts, so the weights of a layer stay in the cache for all of the rows
+    public void predictActions(float[] input, int inputOffset, int count, int[] actions, int actionsOffset) {
+        int half = maxWidth * count;
+        float[] scratch = scratch(2 * half);
+        float[] source = input;
+        int sourceOffset = inputOffset;
+        int targetOffset = 0;
+        int paramOffset = 0;
+        int lastLayer = layerSizes.length - 1;
+
+        for (int layer = 1; layer <= lastLayer; layer++) {
+            int nIn = layerSizes[layer - 1];
+            int nOut = layerSizes[layer];
+            for (int row = 0; row < count; row++) {
+                DenseKernel.DEFAULT.dense(params, paramOffset, nIn, nOut, source, sourceOffset + row * nIn,
+                        scratch, targetOffset + row * nOut, layer < lastLayer);
+            }
+
+            paramOffset += nIn * nOut + nOut;
+            source = scratch;
+            sourceOffset = targetOffset;
+            targetOffset = targetOffset == 0 ? half : 0;
+        }
+
+        int numOutputs = layerSizes[lastLayer];
+        for (int row = 0; row < count; row++) {
+            actions[actionsOffset + row] = argMax(scratch, sourceOffset + row * numOutputs, numOutputs);
+        }
+    }
+
+    // Softmax probabilities of the output layer, the same values as model.output(input)
+    public void output(float[] input, float[] output) {
+        float[] scratch = scratch(2 * maxWidth);
+        int outputOffset = forward(input, 0, scratch);
+        int numOutputs = layerSizes[layerSizes.length - 1];
+
+        float max = scratch[outputOffset];
+        for (int i = 1; i < numOutputs; i++) {
+            max = Math.max(max, scratch[outputOffset + i]);
+        }
+        float sum = 0;
+        for (int i = 0; i < numOutputs; i++) {
+            output[i] = (float) Math.exp(scratch[outputOffset + i] - max);
+            sum += output[i];
+        }
+        for (int i = 0; i < numOutputs; i++) {
+            output[i] /= sum;
+        }
+    }
+
+    // Runs every layer, ping-ponging between the two halves of the scratch buffer.
+    // Returns the offset in scratch where the raw outputs of the last layer start
+    private int forward(float[] input, int inputOffset, float[] scratch) {
+        float[] source = input;
+        int sourceOffset = inputOffset;
+        int targetOffset = 0;
+        int paramOffset = 0;
+        int lastLayer = layerSizes.length - 1;
+
+        for (int layer = 1; layer <= lastLayer; layer++) {
+            int nIn = layerSizes[layer - 1];
+            int nOut = layerSizes[layer];
+
+            // ReLU on the hidden layers, the output layer keeps its raw values for the softmax
+            DenseKernel.DEFAULT.dense(params, paramOffset, nIn, nOut, source, sourceOffset, scratch, targetOffset, layer < lastLayer);
+
+            paramOffset += nIn * nOut + nOut;
+            source = scratch;
+            sourceOffset = targetOffset;
+            targetOffset = targetOffset == 0 ? maxWidth : 0;
+        }
+        return sourceOffset;
+    }
+
+    // Index of the highest of the count values starting at offset. The outputs are too few to be
+    // worth vectors
+    private static int argMax(float[] values, int offset, int count) {
+        int maxIndex = 0;
+        float maxValue = values[offset];
+        for (int i = 1; i < count; i++) {
+            if (values[offset + i] > maxValue) {
+                maxValue = values[offset + i];
+                maxIndex = i;
+            }
+        }
+        return maxIndex;
+    }
+
+    private float[] scratch(int size) {
+        float[] scratch = SCRATCH.get();
+        if (scratch.length < size) {
+            scratch = new float[size];
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+}
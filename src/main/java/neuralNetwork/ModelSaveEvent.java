@@ -0,0 +1,26 @@
+package neuralNetwork;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for saving one network as a DL4J zip
+@Name("blob.ModelSave")
+@Label("Model Save")
+@Category("Blob Simulator")
+@Description("DL4J serialization of one network to a zip file")
+@StackTrace(false)
+public class ModelSaveEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Parameters")
+    public int parameters;
+
+    @Label("Updater Saved")
+    public boolean updaterSaved;
+}
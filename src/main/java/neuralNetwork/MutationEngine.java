@@ -0,0 +1,105 @@
+package neuralNetwork;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Mutates the flat parameters of a network in place, without allocating anything.
+//
+// SHIFTED_UNIFORM changes every weight of the selected layers by rate * (random in [0, 1) - strength),
+// the way blobs have always been mutated.
+//
+// GAUSSIAN and UNIFORM change every parameter (weights and biases) of the selected layers with
+// probability rate instead. Rather than drawing a random number for every parameter, the distance to
+// the next mutated parameter is drawn from a geometric distribution, so the cost grows with the
+// amount of mutated parameters and not with the size of the network
+public class MutationEngine {
+
+    private static final int MAX_SKIP = 1 << 30;
+
+    public enum Distribution {
+        // every weight (not the biases) changes by rate * (uniform in [0, 1) - strength)
+        SHIFTED_UNIFORM,
+        // change drawn from a normal distribution with the strength as standard deviation
+        GAUSSIAN,
+        // change drawn uniformly between -strength and strength
+        UNIFORM
+    }
+
+    private final int[] layerSizes;
+    private final int[] layerStart;
+    private final boolean[] layerMask;
+    private final double rate;
+    private final double logSkipProbability;
+    private final Distribution distribution;
+
+    // layerSizes is the layer layout of the networks, see JavaForwardPass
+    public MutationEngine(int[] layerSizes, double rate, Distribution distribution) {
+        this.layerSizes = layerSizes.clone();
+        this.layerStart = JavaForwardPass.layerOffsets(layerSizes);
+        this.layerMask = new boolean[layerSizes.length - 1];
+        Arrays.fill(layerMask, true);
+        this.rate = rate;
+        this.logSkipProbability = Math.log1p(-Math.min(rate, 1.0));
+        this.distribution = distribution;
+    }
+
+    // Only mutate the given layers (weights and biases), 0 is the first hidden layer
+    public void setMutatedLayers(int... layers) {
+        Arrays.fill(layerMask, false);
+        for (int layer : layers) {
+            layerMask[layer] = true;
+        }
+    }
+
+    // Mutate the network whose parameters start at offset in params
+    public void mutate(float[] params, int offset, double strength, Random random) {
+        if (rate <= 0) {
+            return;
+        }
+        if (distribution == Distribution.SHIFTED_UNIFORM) {
+            mutateAllWeights(params, offset, strength, random);
+            return;
+        }
+        for (int layer = 0; layer < layerMask.length; layer++) {
+            if (!layerMask[layer]) {
+                continue;
+            }
+            int end = offset + layerStart[layer + 1];
+            for (int i = offset + layerStart[layer] + skip(random); i < end; i += 1 + skip(random)) {
+                params[i] += (float) (strength * noise(random));
+            }
+        }
+    }
+
+    private void mutateAllWeights(float[] params, int offset, double strength, Random random) {
+        for (int layer = 0; layer < layerMask.length; layer++) {
+            if (!layerMask[layer]) {
+                continue;
+            }
+            // the weights come first in every layer, then the biases
+            int start = offset + layerStart[layer];
+            int end = start + layerSizes[layer] * layerSizes[layer + 1];
+            for (int i = start; i < end; i++) {
+                params[i] += (float) ((random.nextDouble() - strength) * rate);
+            }
+        }
+    }
+
+    // Amount of parameters to leave alone before the next mutated one
+    private int skip(Random random) {
+        if (rate >= 1) {
+            return 0;
+        }
+        // 1 - nextDouble() is in (0, 1] so the log is finite
+        double skip = Math.log(1 - random.nextDouble()) / logSkipProbability;
+        // capped so the index cannot overflow
+        return skip >= MAX_SKIP ? MAX_SKIP : (int) skip;
+    }
+
+    private double noise(Random random) {
+        if (distribution == Distribution.GAUSSIAN) {
+            return random.nextGaussian();
+        }
+        return 2 * random.nextDouble() - 1;
+    }
+}
@@ -0,0 +1,39 @@
+package neuralNetwork;
+
+import java.util.ArrayDeque;
+
+// Networks that are no longer used by any blob, kept so the next generation can reuse them.
+// Taking a copy from the pool only copies the parameters into an existing network
+public class NetworkPool {
+
+    private final ArrayDeque<BlobNeuralNetwork> free = new ArrayDeque<>();
+
+    // A network with the same weights as the source, reused from the pool when possible
+    public BlobNeuralNetwork copyOf(BlobNeuralNetwork source) {
+        BlobNeuralNetwork network = free.poll();
+        if (network == null || !network.hasSameLayers(source)) {
+            return source.clone();
+        }
+        network.copyParamsFrom(source);
+        return network;
+    }
+
+    // A network with the same layers as the template whose weights are about to be overwritten, e.g. by
+    // a crossover. A pooled network keeps whatever weights it had, nothing is copied into it
+    public BlobNeuralNetwork take(BlobNeuralNetwork template) {
+        BlobNeuralNetwork network = free.poll();
+        if (network == null || !network.hasSameLayers(template)) {
+            return template.clone();
+        }
+        return network;
+    }
+
+    // The network must not be used by anything else afterwards
+    public void release(BlobNeuralNetwork network) {
+        free.push(network);
+    }
+
+    public int size() {
+        return free.size();
+    }
+}
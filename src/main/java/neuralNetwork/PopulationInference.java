@@ -0,0 +1,53 @@
+package neuralNetwork;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+public class PopulationInference {
+
+    // Run one forward pass per distinct network over all of the rows that belong to it.
+    // Row i of the inputs is the sensor vector of the blob driven by networks.get(i),
+    // and the returned array holds the action (argmax of the output) chosen for each row
+    public static int[] predictActions(INDArray inputs, List<BlobNeuralNetwork> networks) {
+        int[] actions = new int[networks.size()];
+
+        // Group the rows by network, clones that were not mutated share the same network
+        Map<BlobNeuralNetwork, List<Integer>> rowsByNetwork = new IdentityHashMap<>();
+        for (int row = 0; row < networks.size(); row++) {
+            rowsByNetwork.computeIfAbsent(networks.get(row), k -> new ArrayList<>()).add(row);
+        }
+
+        for (Map.Entry<BlobNeuralNetwork, List<Integer>> entry : rowsByNetwork.entrySet()) {
+            List<Integer> rows = entry.getValue();
+            int[] rowIndices = new int[rows.size()];
+            for (int i = 0; i < rowIndices.length; i++) {
+                rowIndices[i] = rows.get(i);
+            }
+
+            // Avoid copying the rows when a single network drives the whole population
+            INDArray batch = rowIndices.length == inputs.rows() ? inputs : inputs.getRows(rowIndices);
+            INDArray output = entry.getKey().predict(batch);
+            int[] maxIndices = Nd4j.argMax(output, 1).toIntVector();
+
+            // Scatter the chosen actions back to the rows they came from
+            for (int i = 0; i < rowIndices.length; i++) {
+                actions[rowIndices[i]] = maxIndices[i];
+            }
+        }
+
+        return actions;
+    }
+
+    // Actions for numRows rows of sensor values in a flat array, row i starts at i * numInputs and is run
+    // through networks.get(i). Only the ND4J backend calls this, so the other backends never load ND4J
+    public static int[] predictActions(float[] rows, int numRows, int numInputs, List<BlobNeuralNetwork> networks) {
+        float[] batch = rows.length == numRows * numInputs ? rows : Arrays.copyOf(rows, numRows * numInputs);
+        return predictActions(Nd4j.create(batch, new long[]{numRows, numInputs}, 'c'), networks);
+    }
+}
@@ -0,0 +1,168 @@
+package neuralNetwork;
+
+import java.util.Arrays;
+
+// The weights of a whole table of networks stacked per layer, so a step can run every blob through
+// its own network with one batched pass per layer instead of one forward pass per blob.
+//
+// Layer l has one weight array laid out [network, in, out] and one bias array laid out [network, out].
+// The rows of input are first grouped by the network they belong to. Every layer is then one
+// matrix multiplication per slice over all of the rows of that slice, so the weights of a slice are
+// read once per layer however many blobs share the network. The nOut weights that one input feeds
+// are contiguous, so the kernel works on whole vectors of outputs.
+//
+// The networks stay the source of truth: mutation and crossover change their parameters and the
+// tensor is packed from them again when the table changes (once a generation). Packing transposes
+// every weight matrix, the networks store them [out, in]
+public class PopulationTensor {
+
+    // scratch per thread, the batch is split over the threads of the step
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private static final class Scratch {
+        // activations of the grouped rows, two halves that take turns as input and output of a layer
+        float[] activations = new float[0];
+        // row (relative to from) at every grouped position
+        int[] order = new int[0];
+        // first grouped position of every slice, and the next free one while grouping
+        int[] groupStart = new int[0];
+        int[] groupFill = new int[0];
+    }
+
+    private final int[] layerSizes;
+    private final int maxWidth;
+    private final float[][] weights;
+    private final float[][] biases;
+    private int numNetworks = 0;
+
+    public PopulationTensor(int[] layerSizes) {
+        this.layerSizes = layerSizes.clone();
+        int numLayers = layerSizes.length - 1;
+        this.weights = new float[numLayers][0];
+        this.biases = new float[numLayers][0];
+        int width = 0;
+        for (int size : layerSizes) {
+            width = Math.max(width, size);
+        }
+        this.maxWidth = width;
+    }
+
+    // Stack the first count networks. Grows the layer arrays when there are more networks than before
+    public void pack(BlobNeuralNetwork[] networks, int count) {
+        numNetworks = count;
+        for (int layer = 0; layer < weights.length; layer++) {
+            int nIn = layerSizes[layer];
+            int nOut = layerSizes[layer + 1];
+            if (weights[layer].length < count * nIn * nOut) {
+                weights[layer] = new float[count * nIn * nOut];
+                biases[layer] = new float[count * nOut];
+            }
+        }
+        for (int n = 0; n < count; n++) {
+            packNetwork(n, networks[n]);
+        }
+    }
+
+    // Copy the parameters of one network into slice n, e.g. after it was changed in place
+    public void packNetwork(int n, BlobNeuralNetwork network) {
+        if (!Arrays.equals(network.getLayerSizes(), layerSizes)) {
+            throw new IllegalArgumentException("Network has layer sizes " + Arrays.toString(network.getLayerSizes())
+                    + ", the tensor uses " + Arrays.toString(layerSizes));
+        }
+        packParams(n, network.getParams());
+    }
+
+    // Copy flat parameters in the layout of JavaForwardPass into slice n
+    public void packParams(int n, float[] params) {
+        int paramOffset = 0;
+        for (int layer = 0; layer < weights.length; layer++) {
+            int nIn = layerSizes[layer];
+            int nOut = layerSizes[layer + 1];
+            float[] w = weights[layer];
+            int slice = n * nIn * nOut;
+            for (int j = 0; j < nOut; j++) {
+                for (int i = 0; i < nIn; i++) {
+                    w[slice + i * nOut + j] = params[paramOffset + j * nIn + i];
+                }
+            }
+            System.arraycopy(params, paramOffset + nIn * nOut, biases[layer], n * nOut, nOut);
+            paramOffset += nIn * nOut + nOut;
+        }
+    }
+
+    // Actions for the rows from (inclusive) to (exclusive) of inputs, row r starts at r * the number of
+    // inputs and goes through network networkIndex[r]. Every layer runs over all of the rows before
+    // the next layer starts
+    public void predictActions(float[] inputs, int[] networkIndex, int from, int to, int[] actions) {
+        int count = to - from;
+        int half = maxWidth * count;
+        Scratch scratch = SCRATCH.get();
+        if (scratch.activations.length < 2 * half) {
+            scratch.activations = new float[2 * half];
+        }
+        if (scratch.order.length < count) {
+            scratch.order = new int[count];
+        }
+        if (scratch.groupStart.length < numNetworks + 1) {
+            scratch.groupStart = new int[numNetworks + 1];
+            scratch.groupFill = new int[numNetworks];
+        }
+        float[] activations = scratch.activations;
+        int[] order = scratch.order;
+        int[] groupStart = scratch.groupStart;
+        int[] groupFill = scratch.groupFill;
+
+        // Group the rows by network (a counting sort) and copy them into the first half in that order
+        Arrays.fill(groupStart, 0, numNetworks + 1, 0);
+        for (int row = from; row < to; row++) {
+            groupStart[networkIndex[row] + 1]++;
+        }
+        for (int n = 0; n < numNetworks; n++) {
+            groupStart[n + 1] += groupStart[n];
+        }
+        System.arraycopy(groupStart, 0, groupFill, 0, numNetworks);
+        int numInputs = layerSizes[0];
+        for (int row = from; row < to; row++) {
+            int position = groupFill[networkIndex[row]]++;
+            order[position] = row - from;
+            System.arraycopy(inputs, row * numInputs, activations, position * numInputs, numInputs);
+        }
+
+        DenseKernel kernel = DenseKernel.DEFAULT;
+        int sourceOffset = 0;
+        int targetOffset = half;
+        int lastLayer = weights.length - 1;
+        for (int layer = 0; layer <= lastLayer; layer++) {
+            int nIn = layerSizes[layer];
+            int nOut = layerSizes[layer + 1];
+            float[] w = weights[layer];
+            float[] b = biases[layer];
+            for (int n = 0; n < numNetworks; n++) {
+                int rows = groupStart[n + 1] - groupStart[n];
+                if (rows == 0) {
+                    continue;
+                }
+                // ReLU on the hidden layers, the argmax only needs the raw outputs of the last one
+                kernel.denseInOut(w, n * nIn * nOut, b, n * nOut, nIn, nOut,
+                        activations, sourceOffset + groupStart[n] * nIn, rows,
+                        activations, targetOffset + groupStart[n] * nOut, layer < lastLayer);
+            }
+            sourceOffset = targetOffset;
+            targetOffset = targetOffset == 0 ? half : 0;
+        }
+
+        int numOutputs = layerSizes[layerSizes.length - 1];
+        for (int position = 0; position < count; position++) {
+            int offset = sourceOffset + position * numOutputs;
+            int maxIndex = 0;
+            float maxValue = activations[offset];
+            for (int i = 1; i < numOutputs; i++) {
+                if (activations[offset + i] > maxValue) {
+                    maxValue = activations[offset + i];
+                    maxIndex = i;
+                }
+            }
+            actions[from + order[position]] = maxIndex;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package neuralNetwork;
+
+import java.nio.ByteBuffer;
+
+// An int8 copy of a network: every weight is a byte and every layer has one scale, so weight = byte * scale.
+// The scale of a layer is its largest absolute weight / 127 (symmetric, no zero point). The biases are few
+// and stay floats. The weights use the layout of JavaForwardPass, nIn weights per output.
+//
+// Used by the QUANTIZED backend to choose actions and by PopulationSnapshot to store the networks in a
+// quarter of the space. Only the argmax of the outputs matters to a blob, so the rounding rarely changes
+// the action (about 2 in 100 decisions, BackendParityTest keeps it below 5)
+public class QuantizedNetwork {
+
+    private static final ThreadLocal<float[]> SCRATCH = ThreadLocal.withInitial(() -> new float[0]);
+
+    private final int[] layerSizes;
+    private final int maxWidth;
+    private final byte[] weights;
+    private final float[] scales;
+    private final float[] biases;
+
+    public QuantizedNetwork(int[] layerSizes) {
+        this.layerSizes = layerSizes.clone();
+        int numWeights = 0;
+        int numBiases = 0;
+        int width = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            numWeights += layerSizes[layer - 1] * layerSizes[layer];
+            numBiases += layerSizes[layer];
+        }
+        for (int size : layerSizes) {
+            width = Math.max(width, size);
+        }
+        this.maxWidth = width;
+        this.weights = new byte[numWeights];
+        this.scales = new float[layerSizes.length - 1];
+        this.biases = new float[numBiases];
+    }
+
+    public static QuantizedNetwork of(BlobNeuralNetwork network) {
+        QuantizedNetwork quantized = new QuantizedNetwork(network.getLayerSizes());
+        quantized.quantize(network.getParams());
+        return quantized;
+    }
+
+    // Bytes written by write for these layer sizes
+    public static int encodedSize(int[] layerSizes) {
+        int size = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            size += Float.BYTES + layerSizes[layer - 1] * layerSizes[layer] + layerSizes[layer] * Float.BYTES;
+        }
+        return size;
+    }
+
+    // Round flat parameters in the layout of JavaForwardPass
+    public void quantize(float[] params) {
+        int paramOffset = 0;
+        int weightOffset = 0;
+        int biasOffset = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            int numWeights = layerSizes[layer - 1] * layerSizes[layer];
+            int nOut = layerSizes[layer];
+
+            float maxAbs = 0;
+            for (int i = 0; i < numWeights; i++) {
+                maxAbs = Math.max(maxAbs, Math.abs(params[paramOffset + i]));
+            }
+            float scale = maxAbs == 0 ? 1 : maxAbs / 127;
+            scales[layer - 1] = scale;
+            for (int i = 0; i < numWeights; i++) {
+                weights[weightOffset + i] = (byte) Math.round(params[paramOffset + i] / scale);
+            }
+            System.arraycopy(params, paramOffset + numWeights, biases, biasOffset, nOut);
+
+            paramOffset += numWeights + nOut;
+            weightOffset += numWeights;
+            biasOffset += nOut;
+        }
+    }
+
+    // Write the rounded parameters back as floats in the layout of JavaForwardPass
+    public void dequantize(float[] params) {
+        int paramOffset = 0;
+        int weightOffset = 0;
+        int biasOffset = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            int numWeights = layerSizes[layer - 1] * layerSizes[layer];
+            int nOut = layerSizes[layer];
+            float scale = scales[layer - 1];
+            for (int i = 0; i < numWeights; i++) {
+                params[paramOffset + i] = weights[weightOffset + i] * scale;
+            }
+            System.arraycopy(biases, biasOffset, params, paramOffset + numWeights, nOut);
+
+            paramOffset += numWeights + nOut;
+            weightOffset += numWeights;
+            biasOffset += nOut;
+        }
+    }
+
+    // Per layer: float scale, the weights as bytes, the biases as floats. Uses the order of the buffer
+    public void write(ByteBuffer out) {
+        int weightOffset = 0;
+        int biasOffset = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            int numWeights = layerSizes[layer - 1] * layerSizes[layer];
+            int nOut = layerSizes[layer];
+            out.putFloat(scales[layer - 1]);
+            out.put(weights, weightOffset, numWeights);
+            for (int j = 0; j < nOut; j++) {
+                out.putFloat(biases[biasOffset + j]);
+            }
+            weightOffset += numWeights;
+            biasOffset += nOut;
+        }
+    }
+
+    public void read(ByteBuffer in) {
+        int weightOffset = 0;
+        int biasOffset = 0;
+        for (int layer = 1; layer < layerSizes.length; layer++) {
+            int numWeights = layerSizes[layer - 1] * layerSizes[layer];
+            int nOut = layerSizes[layer];
+            scales[layer - 1] = in.getFloat();
+            in.get(weights, weightOffset, numWeights);
+            for (int j = 0; j < nOut; j++) {
+                biases[biasOffset + j] = in.getFloat();
+            }
+            weightOffset += numWeights;
+            biasOffset += nOut;
+        }
+    }
+
+    // Index of the highest output for the row of input that starts at inputOffset, the same as
+    // JavaForwardPass.predictAction with the rounded weights
+    public int predictAction(float[] input, int inputOffset) {
+        float[] scratch = SCRATCH.get();
+        if (scratch.length < 2 * maxWidth) {
+            scratch = new float[2 * maxWidth];
+            SCRATCH.set(scratch);
+        }
+
+        float[] source = input;
+        int sourceOffset = inputOffset;
+        int targetOffset = 0;
+        int weightOffset = 0;
+        int biasOffset = 0;
+        int lastLayer = layerSizes.length - 1;
+        for (int layer = 1; layer <= lastLayer; layer++) {
+            int nIn = layerSizes[layer - 1];
+            int nOut = layerSizes[layer];
+            float scale = scales[layer - 1];
+            for (int j = 0; j < nOut; j++) {
+                // the scale is the same for the whole layer, so it is applied once to the sum
+                float sum = 0;
+                int row = weightOffset + j * nIn;
+                for (int i = 0; i < nIn; i++) {
+                    sum += source[sourceOffset + i] * weights[row + i];
+                }
+                sum = biases[biasOffset + j] + sum * scale;
+                // ReLU on the hidden layers, the argmax only needs the raw outputs of the last one
+                scratch[targetOffset + j] = layer < lastLayer && sum < 0 ? 0 : sum;
+            }
+            weightOffset += nIn * nOut;
+            biasOffset += nOut;
+            source = scratch;
+            sourceOffset = targetOffset;
+            targetOffset = targetOffset == 0 ? maxWidth : 0;
+        }
+
+        int numOutputs = layerSizes[lastLayer];
+        int maxIndex = 0;
+        float maxValue = scratch[sourceOffset];
+        for (int i = 1; i < numOutputs; i++) {
+            if (scratch[sourceOffset + i] > maxValue) {
+                maxValue = scratch[sourceOffset + i];
+                maxIndex = i;
+            }
+        }
+        return maxIndex;
+    }
+}
@@ -0,0 +1,116 @@
+package neuralNetwork;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Dense layer on the Vector API: the dot product of every output is a fused multiply-add over whole
+// vectors of the input and the weights, and whatever does not fill a vector is done in a plain loop.
+// Only loaded by DenseKernel when the jdk.incubator.vector module is there
+final class VectorDenseKernel extends DenseKernel {
+
+    // 256 bit vectors (8 floats) cover the 25 and 18 wide rows of the blob network with little left
+    // over, 512 bit vectors would leave most of every row to the plain loop
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED.vectorBitSize() >= 256
+            ? FloatVector.SPECIES_256 : FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void dense(float[] params, int paramOffset, int nIn, int nOut,
+                      float[] input, int inputOffset, float[] output, int outputOffset, boolean relu) {
+        int biasOffset = paramOffset + nIn * nOut;
+        int bound = SPECIES.loopBound(nIn);
+        for (int j = 0; j < nOut; j++) {
+            int weightOffset = paramOffset + j * nIn;
+            FloatVector products = FloatVector.zero(SPECIES);
+            int i = 0;
+            for (; i < bound; i += SPECIES.length()) {
+                FloatVector in = FloatVector.fromArray(SPECIES, input, inputOffset + i);
+                FloatVector weights = FloatVector.fromArray(SPECIES, params, weightOffset + i);
+                products = in.fma(weights, products);
+            }
+            float sum = params[biasOffset + j] + products.reduceLanes(VectorOperators.ADD);
+            for (; i < nIn; i++) {
+                sum += input[inputOffset + i] * params[weightOffset + i];
+            }
+            output[outputOffset + j] = relu && sum < 0 ? 0 : sum;
+        }
+    }
+
+    // Whole vectors of outputs of four rows at a time: every weight vector is loaded once and multiplied
+    // with the broadcast inputs of all four rows, the rows that do not fill a tile go one by one
+    @Override
+    public void denseInOut(float[] weights, int weightOffset, float[] biases, int biasOffset, int nIn, int nOut,
+                           float[] input, int inputOffset, int rows, float[] output, int outputOffset, boolean relu) {
+        int bound = SPECIES.loopBound(nOut);
+        int r = 0;
+        for (; r + 4 <= rows; r += 4) {
+            int in0 = inputOffset + r * nIn;
+            int in1 = in0 + nIn;
+            int in2 = in1 + nIn;
+            int in3 = in2 + nIn;
+            int out0 = outputOffset + r * nOut;
+            int j = 0;
+            for (; j < bound; j += SPECIES.length()) {
+                FloatVector sums0 = FloatVector.fromArray(SPECIES, biases, biasOffset + j);
+                FloatVector sums1 = sums0;
+                FloatVector sums2 = sums0;
+                FloatVector sums3 = sums0;
+                for (int i = 0; i < nIn; i++) {
+                    FloatVector w = FloatVector.fromArray(SPECIES, weights, weightOffset + i * nOut + j);
+                    sums0 = w.fma(FloatVector.broadcast(SPECIES, input[in0 + i]), sums0);
+                    sums1 = w.fma(FloatVector.broadcast(SPECIES, input[in1 + i]), sums1);
+                    sums2 = w.fma(FloatVector.broadcast(SPECIES, input[in2 + i]), sums2);
+                    sums3 = w.fma(FloatVector.broadcast(SPECIES, input[in3 + i]), sums3);
+                }
+                if (relu) {
+                    sums0 = sums0.max(0f);
+                    sums1 = sums1.max(0f);
+                    sums2 = sums2.max(0f);
+                    sums3 = sums3.max(0f);
+                }
+                sums0.intoArray(output, out0 + j);
+                sums1.intoArray(output, out0 + nOut + j);
+                sums2.intoArray(output, out0 + 2 * nOut + j);
+                sums3.intoArray(output, out0 + 3 * nOut + j);
+            }
+            for (int t = 0; t < 4; t++) {
+                denseTail(weights, weightOffset, biases, biasOffset, nIn, nOut, j,
+                        input, inputOffset + (r + t) * nIn, output, out0 + t * nOut, relu);
+            }
+        }
+        for (; r < rows; r++) {
+            int in = inputOffset + r * nIn;
+            int out = outputOffset + r * nOut;
+            int j = 0;
+            for (; j < bound; j += SPECIES.length()) {
+                FloatVector sums = FloatVector.fromArray(SPECIES, biases, biasOffset + j);
+                for (int i = 0; i < nIn; i++) {
+                    FloatVector w = FloatVector.fromArray(SPECIES, weights, weightOffset + i * nOut + j);
+                    sums = w.fma(FloatVector.broadcast(SPECIES, input[in + i]), sums);
+                }
+                if (relu) {
+                    sums = sums.max(0f);
+                }
+                sums.intoArray(output, out + j);
+            }
+            denseTail(weights, weightOffset, biases, biasOffset, nIn, nOut, j, input, in, output, out, relu);
+        }
+    }
+
+    // the outputs from j on that do not fill a vector, for one row
+    private static void denseTail(float[] weights, int weightOffset, float[] biases, int biasOffset, int nIn, int nOut, int j,
+                                  float[] input, int inputOffset, float[] output, int outputOffset, boolean relu) {
+        for (; j < nOut; j++) {
+            float sum = biases[biasOffset + j];
+            for (int i = 0; i < nIn; i++) {
+                sum += input[inputOffset + i] * weights[weightOffset + i * nOut + j];
+            }
+            output[outputOffset + j] = relu && sum < 0 ? 0 : sum;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector " + SPECIES.vectorBitSize() + " bit";
+    }
+}
@@ -1,51 +1,22 @@
 package organisms;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Random;
-import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.factory.Nd4j;
-
-import neuralNetwork.BlobNeuralNetwork;
-import simulator.Point;
-import simulator.Simulator;
-
-public class Blob {
-
-    public Point position;
-    public BlobNeuralNetwork neuralNetwork;
-    public static int mapSize;
-    public int eatenAmount = 0;
-    public static int numOfInputSensors;
-    public static int numOfHiddenNeurons;
-    public static int numOfOutputNeurons;
-    public static int sensingRange;
-    public static int blobSize;
-    public int lastActionTaken = 10;
-    public Random random = new Random(System.currentTimeMillis());
-
-
-    public Blob(Point position, BlobNeuralNetwork neuralNetwork) {
-        this.position = position;
-        this.neuralNetwork = neuralNetwork;
-    }
-
-    public void update(List<Food> foods, List<Blob> blobs) {
-        for (Blob blob : blobs) {
-            // Get input data based on the blob's state
-            INDArray input = blob.generateInputVector(foods, blobs);
 
-            // Generate target data based on the desired behavior (not implemented in this example)
-            INDArray target = blob.generateOutputVector(input);
+import simulator.IntList;
+import simulator.Metrics;
+import simulator.World;
 
-            blob.updateBlobPosition(target);
-        }
+// What a blob does: sensing, moving and eating. The blobs themselves are indices into world.blobs,
+// these methods read and change the arrays of that population
+public final class Blob {
 
+    // scratch lists for the spatial grid queries, one per thread because blobs sense in parallel
+    private static final ThreadLocal<IntList> NEARBY_FOODS = ThreadLocal.withInitial(IntList::new);
+    private static final ThreadLocal<IntList> NEARBY_BLOBS = ThreadLocal.withInitial(IntList::new);
 
-
-        checkForFoodEating(foods);
+    private Blob() {
     }
 
-    private void updateBlobPosition(INDArray output) {
+    // Apply the action chosen by the neural network for this step
+    public static void updateBlobPosition(World world, int blob, int maxIndex) {
         // Assuming the neural network has 6 outputs:
         // 0. Move left
         // 1. Move right
@@ -58,67 +29,54 @@ public class Blob {
         // 8. Eat everything adjacent
         // 9. Random Movement    
         // 10. Do nothing
-        int numOutputs = output.columns();
-    
-        // Find the index with the maximum value in the output vector
-        int maxIndex = 0;
-        double maxValue = output.getDouble(0);
-        for (int i = 1; i < numOutputs; i++) {
-            double value = output.getDouble(i);
-            if (value > maxValue) {
-                maxValue = value;
-                maxIndex = i;
-            }
-        }
-        lastActionTaken = maxIndex;
+        BlobPopulation blobs = world.blobs;
+        blobs.lastAction[blob] = (byte) maxIndex;
+        int oldX = blobs.x[blob];
+        int oldY = blobs.y[blob];
         // Update the blob's position based on the identified action or direction
         if (maxIndex >= 0 && maxIndex < 8){
-            moveInAdjacentDirection(maxIndex);
+            moveInAdjacentDirection(world, blob, maxIndex);
         }
 
     switch (maxIndex) {
         case 8:
             // Eat everything adjacent, meaning remove all foods adjacent to the blob
-            checkForFoodEating(Simulator.getInstance().foods);
+            checkForFoodEating(world, blob);
             break;
         case 9:
             // Random Movement
-            int randomDirection = random.nextInt(8);
-            moveInAdjacentDirection(randomDirection);
+            int randomDirection = blobs.nextInt(blob, 8);
+            moveInAdjacentDirection(world, blob, randomDirection);
             break;
         }
 
-        // make sure the blob stays within the map which is 1080x1080
-        if (position.x < 0) {
-            position.x = 0;
-        } else if (position.x > mapSize) {
-            position.x = mapSize;
+        // make sure the blob stays within the map
+        int mapSize = world.config.mapSize;
+        if (blobs.x[blob] < 0) {
+            blobs.x[blob] = 0;
+        } else if (blobs.x[blob] > mapSize) {
+            blobs.x[blob] = mapSize;
         }
 
-        if (position.y < 0) {
-            position.y = 0;
-        } else if (position.y > mapSize) {
-            position.y = mapSize;
+        if (blobs.y[blob] < 0) {
+            blobs.y[blob] = 0;
+        } else if (blobs.y[blob] > mapSize) {
+            blobs.y[blob] = mapSize;
         }
 
-    }
-
-    public INDArray generateOutputVector(INDArray input) {
-        // Get the raw output from the neural network
-        INDArray rawOutput = neuralNetwork.predict(input);
+        // keep the blob in the right cell of the grid
+        world.blobGrid.move(blob, oldX, oldY);
 
+    }
 
-        // Find the index with the maximum value in the softmax output vector
-        int maxIndex = Nd4j.argMax(rawOutput, 1).getInt(0);
-    
-        // Create a one-hot encoded vector for the selected action
-        INDArray outputVector = Nd4j.zeros(1, numOfOutputNeurons);
-        outputVector.putScalar(maxIndex, 1.0);
-    
-        return outputVector;
+    // Action for this step: the row of sensors goes straight into the blob's network
+    public static int chooseAction(World world, int blob, float[] sensors, int offset) {
+        return world.blobs.networkOf(blob).predictAction(sensors, offset);
     }
 
-    public INDArray generateInputVector(List<Food> foods, List<Blob> blobs) {
+    // Write the numOfInputSensors sensor values of the blob into sensors, starting at offset.
+    // Everything is collected in locals first and the row is written once at the end
+    public static void generateInputVector(World world, int blob, float[] sensors, int offset) {
         // Assuming the neural network has 14 inputs:
         // 0. Food on the left in a radius of 50
         // 1. Food on the right in a radius of 50
@@ -148,8 +106,23 @@ public class Blob {
 
 
     
-        // Initialize the input vector with zeros
-        INDArray inputVector = Nd4j.zeros(1, numOfInputSensors);
+        int sensingRange = world.config.sensingRange;
+        int blobSize = world.config.blobSize;
+        int mapSize = world.config.mapSize;
+        BlobPopulation blobs = world.blobs;
+        Positions foods = world.foods;
+        int x = blobs.x[blob];
+        int y = blobs.y[blob];
+
+        // Food and blob in every direction, the last one found in a direction wins
+        float foodLeft = 0, foodRight = 0, foodTop = 0, foodBottom = 0;
+        float blobLeft = 0, blobRight = 0, blobTop = 0, blobBottom = 0;
+
+        // Nearest food and blob, 0 until something is found
+        float nearestFood = 0;
+        float nearestBlob = 0;
+        float foodAdjacent = 0;
+        float blobAdjacent = 0;
 
         // Initialize the food density variables
         int trFoodDensity = 0;
@@ -165,260 +138,232 @@ public class Blob {
 
         // Calculate the normalization factor for the density
         double normalizationFactor = 1.0 / sensingRange;
+
+        // compared against squared distances, so no square roots are needed
+        long foodAdjacentSquared = (long) blobSize * blobSize;
+        long blobAdjacentSquared = 4L * blobSize * blobSize;
     
-        // Iterate over all foods and blobs to populate the input vector
-        for (Food food : foods) {
-            double distance = distance(position, food.position);
-            if (distance <= sensingRange) {
-                  double weight = calculateDynamicWeight(distance);
-                // Food on the left
-                if (food.position.x < position.x && (position.x - food.position.x) <= sensingRange) {
-                    inputVector.putScalar(0, weight);
-                }
-                // Food on the right
-                else if (food.position.x > position.x && (food.position.x - position.x) <= sensingRange) {
-                    inputVector.putScalar(1, weight);
-                }
-                // Food on the top
-                else if (food.position.y < position.y && (position.y - food.position.y) <= sensingRange) {
-                    inputVector.putScalar(2, weight);
-                }
-                // Food on the bottom
-                else if (food.position.y > position.y && (food.position.y - position.y) <= sensingRange) {
-                    inputVector.putScalar(3, weight);
-                }
-    
-                // Distance from nearest food
-                double currentDistance = distance(position, food.position);
-                double currentNearestDistance = inputVector.getDouble(12);
-                if (currentDistance < currentNearestDistance || currentNearestDistance == 0) {
-                    // Calculate dynamic weight based on the nearest food distance
-                    double dynamicWeight = calculateDynamicWeight(currentDistance);
-
-                    // Apply dynamic weight to the input vector at index 12
-                    inputVector.putScalar(12, currentDistance * dynamicWeight);
-                }
+        // Iterate over the foods and blobs in sensing range. The grid only returns the ones within
+        // sensingRange, so everything found is in range in every direction too
+        IntList nearbyFoods = NEARBY_FOODS.get();
+        IntList nearbyBlobs = NEARBY_BLOBS.get();
+        world.foodGrid.queryRange(x, y, sensingRange, nearbyFoods);
+        world.blobGrid.queryRange(x, y, sensingRange, nearbyBlobs);
+        for (int i = 0; i < nearbyFoods.size(); i++) {
+            int food = nearbyFoods.get(i);
+            int foodX = foods.x[food];
+            int foodY = foods.y[food];
+            long distanceSquared = SensorMath.distanceSquared(x, y, foodX, foodY);
+            float weight = SensorMath.weight(distanceSquared);
+            // Food on the left
+            if (foodX < x) {
+                foodLeft = weight;
+            }
+            // Food on the right
+            else if (foodX > x) {
+                foodRight = weight;
+            }
+            // Food on the top
+            else if (foodY < y) {
+                foodTop = weight;
+            }
+            // Food on the bottom
+            else if (foodY > y) {
+                foodBottom = weight;
+            }
 
-                // Calculating density of food in top right, top left, bottom right, bottom left
-                // Top right
-                if (food.position.x > position.x && food.position.y < position.y && food.position.x - position.x <= sensingRange && position.y - food.position.y <= sensingRange) {
+            // Distance from nearest food, the same as distance < nearestFood on the squares
+            if (distanceSquared < (double) nearestFood * nearestFood || nearestFood == 0) {
+                nearestFood = SensorMath.weightedDistance(distanceSquared);
+            }
+
+            // Calculating density of food in top right, top left, bottom right, bottom left
+            if (foodY < y) {
+                if (foodX > x) {
                     trFoodDensity++;
-                }
-                // Top left
-                if (food.position.x < position.x && food.position.y < position.y && position.x - food.position.x <= sensingRange && position.y - food.position.y <= sensingRange) {
+                } else if (foodX < x) {
                     tlFoodDensity++;
                 }
-                // Bottom right
-                if (food.position.x > position.x && food.position.y > position.y && food.position.x - position.x <= sensingRange && food.position.y - position.y <= sensingRange) {
+            } else if (foodY > y) {
+                if (foodX > x) {
                     brFoodDensity++;
-                }
-                // Bottom left
-                if (food.position.x < position.x && food.position.y > position.y && position.x - food.position.x <= sensingRange && food.position.y - position.y <= sensingRange) {
+                } else if (foodX < x) {
                     blFoodDensity++;
                 }
-
-                // Apply density to the input vector at index 16, 17, 18, 19
-                inputVector.putScalar(16, trFoodDensity * normalizationFactor);
-                inputVector.putScalar(17, tlFoodDensity * normalizationFactor);
-                inputVector.putScalar(18, brFoodDensity * normalizationFactor);
-                inputVector.putScalar(19, blFoodDensity * normalizationFactor);
-
             }
 
             // Food adjacent to the blob make sure it is radius of blob
-            if (distance(position, food.position) <= blobSize) {
-                inputVector.putScalar(14, 1.0);
+            if (distanceSquared <= foodAdjacentSquared) {
+                foodAdjacent = 1;
             }
-
         }
     
-        for (Blob blob : blobs) {
-            double distance = distance(position, blob.position);
-            if (!blob.equals(this) && distance <= sensingRange) {
-                double weight = calculateDynamicWeight(distance);
-                // Blob on the left
-                if (blob.position.x < position.x && (position.x - blob.position.x) <= sensingRange) {
-                    inputVector.putScalar(4, weight);
-                }
-                // Blob on the right
-                else if (blob.position.x > position.x && (blob.position.x - position.x) <= sensingRange) {
-                    inputVector.putScalar(5, weight);
-                }
-                // Blob on the top
-                else if (blob.position.y < position.y && (position.y - blob.position.y) <= sensingRange) {
-                    inputVector.putScalar(6, weight);
-                }
-                // Blob on the bottom
-                else if (blob.position.y > position.y && (blob.position.y - position.y) <= sensingRange) {
-                    inputVector.putScalar(7, weight);
-                }
-    
-                // Distance from nearest blob
-                double currentDistance = distance(position, blob.position);
-                double currentNearestDistance = inputVector.getDouble(13);
-                if (currentDistance < currentNearestDistance || currentNearestDistance == 0) {
-                    currentDistance = calculateDynamicWeight(currentDistance);
-                    inputVector.putScalar(13, currentDistance);
-                }
-                // Blob adjacent to the blob make sure it is radius of blob
-                if (distance(position, blob.position) <= blobSize * 2) {
-                    inputVector.putScalar(15, 1.0);
-                }
+        for (int i = 0; i < nearbyBlobs.size(); i++) {
+            int other = nearbyBlobs.get(i);
+            if (other == blob) {
+                continue;
+            }
+            int otherX = blobs.x[other];
+            int otherY = blobs.y[other];
+            long distanceSquared = SensorMath.distanceSquared(x, y, otherX, otherY);
+            float weight = SensorMath.weight(distanceSquared);
+            // Blob on the left
+            if (otherX < x) {
+                blobLeft = weight;
+            }
+            // Blob on the right
+            else if (otherX > x) {
+                blobRight = weight;
+            }
+            // Blob on the top
+            else if (otherY < y) {
+                blobTop = weight;
+            }
+            // Blob on the bottom
+            else if (otherY > y) {
+                blobBottom = weight;
+            }
+
+            // Distance from nearest blob
+            if (distanceSquared < (double) nearestBlob * nearestBlob || nearestBlob == 0) {
+                nearestBlob = weight;
+            }
+            // Blob adjacent to the blob make sure it is radius of blob
+            if (distanceSquared <= blobAdjacentSquared) {
+                blobAdjacent = 1;
+            }
 
-                // Calculating density of blob in top right, top left, bottom right, bottom left
-                // Top right
-                if (blob.position.x > position.x && blob.position.y < position.y && blob.position.x - position.x <= sensingRange && position.y - blob.position.y <= sensingRange) {
+            // Calculating density of blob in top right, top left, bottom right, bottom left
+            if (otherY < y) {
+                if (otherX > x) {
                     trBlobDensity++;
-                }
-                // Top left
-                if (blob.position.x < position.x && blob.position.y < position.y && position.x - blob.position.x <= sensingRange && position.y - blob.position.y <= sensingRange) {
+                } else if (otherX < x) {
                     tlBlobDensity++;
                 }
-                // Bottom right
-                if (blob.position.x > position.x && blob.position.y > position.y && blob.position.x - position.x <= sensingRange && blob.position.y - position.y <= sensingRange) {
+            } else if (otherY > y) {
+                if (otherX > x) {
                     brBlobDensity++;
-                }
-                // Bottom left
-                if (blob.position.x < position.x && blob.position.y > position.y && position.x - blob.position.x <= sensingRange && blob.position.y - position.y <= sensingRange) {
+                } else if (otherX < x) {
                     blBlobDensity++;
                 }
-
-                // Apply density to the input vector at index 20, 21, 22, 23
-                inputVector.putScalar(20, trBlobDensity * normalizationFactor);
-                inputVector.putScalar(21, tlBlobDensity * normalizationFactor);
-                inputVector.putScalar(22, brBlobDensity * normalizationFactor);
-                inputVector.putScalar(23, blBlobDensity * normalizationFactor);
-
             }
-
         }
-    
+
+        sensors[offset] = foodLeft;
+        sensors[offset + 1] = foodRight;
+        sensors[offset + 2] = foodTop;
+        sensors[offset + 3] = foodBottom;
+        sensors[offset + 4] = blobLeft;
+        sensors[offset + 5] = blobRight;
+        sensors[offset + 6] = blobTop;
+        sensors[offset + 7] = blobBottom;
+
         // Distance from Borders
-        inputVector.putScalar(8, position.y); // Distance from North Border
-        inputVector.putScalar(9, mapSize - position.y); // Distance from South Border
-        inputVector.putScalar(10, mapSize - position.x); // Distance from East Border
-        inputVector.putScalar(11, position.x); // Distance from West Border
+        sensors[offset + 8] = y; // Distance from North Border
+        sensors[offset + 9] = mapSize - y; // Distance from South Border
+        sensors[offset + 10] = mapSize - x; // Distance from East Border
+        sensors[offset + 11] = x; // Distance from West Border
+
+        sensors[offset + 12] = nearestFood;
+        sensors[offset + 13] = nearestBlob;
+        sensors[offset + 14] = foodAdjacent;
+        sensors[offset + 15] = blobAdjacent;
+
+        // Density of food and blobs in the four quarters around the blob
+        sensors[offset + 16] = (float) (trFoodDensity * normalizationFactor);
+        sensors[offset + 17] = (float) (tlFoodDensity * normalizationFactor);
+        sensors[offset + 18] = (float) (brFoodDensity * normalizationFactor);
+        sensors[offset + 19] = (float) (blFoodDensity * normalizationFactor);
+        sensors[offset + 20] = (float) (trBlobDensity * normalizationFactor);
+        sensors[offset + 21] = (float) (tlBlobDensity * normalizationFactor);
+        sensors[offset + 22] = (float) (brBlobDensity * normalizationFactor);
+        sensors[offset + 23] = (float) (blBlobDensity * normalizationFactor);
 
         // Last action taken
-        inputVector.putScalar(24, lastActionTaken);
-    
-        return inputVector;
+        sensors[offset + 24] = blobs.lastAction[blob];
     }
 
-    private void checkForFoodEating(List<Food> foods) {
-        Iterator<Food> iterator = foods.iterator();
-        while (iterator.hasNext()) {
-            Food food = iterator.next();
-            if (isAdjacent(food.position, blobSize)) {
-                eatenAmount++;
-                iterator.remove(); // Use iterator to safely remove the food
-            }
+    public static void checkForFoodEating(World world, int blob) {
+        // only the foods within the blob's size can be eaten
+        IntList nearbyFoods = NEARBY_FOODS.get();
+        world.foodGrid.queryRange(world.blobs.x[blob], world.blobs.y[blob], world.config.blobSize, nearbyFoods);
+        Metrics.count(Metrics.Counter.FOOD_EATEN, nearbyFoods.size());
+
+        // removing a food moves the last food into its index, so remove the highest indices first
+        nearbyFoods.sortDescending();
+        for (int i = 0; i < nearbyFoods.size(); i++) {
+            world.blobs.eaten[blob]++;
+            world.removeFood(nearbyFoods.get(i));
         }
     }
 
-    private void moveInAdjacentDirection(int index){
+    private static void moveInAdjacentDirection(World world, int blob, int index){
+        int[] xs = world.blobs.x;
+        int[] ys = world.blobs.y;
          switch (index) {
         case 0:
-            position.x -= 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.x += 1;
+            xs[blob] -= 1;
+            if (checkForBlobCollision(world, blob)){
+                xs[blob] += 1;
             }
 
             break;
         case 1:
-            position.x += 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.x -= 1;
+            xs[blob] += 1;
+            if (checkForBlobCollision(world, blob)){
+                xs[blob] -= 1;
             }
             break;
         case 2:
-            position.y -= 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.y += 1;
+            ys[blob] -= 1;
+            if (checkForBlobCollision(world, blob)){
+                ys[blob] += 1;
             }
             break;
         case 3:
-            position.y += 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.y -= 1;
+            ys[blob] += 1;
+            if (checkForBlobCollision(world, blob)){
+                ys[blob] -= 1;
             }
             break;
         case 4:
-            position.x -= 1;
-            position.y -= 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.x += 1;
-                position.y += 1;
+            xs[blob] -= 1;
+            ys[blob] -= 1;
+            if (checkForBlobCollision(world, blob)){
+                xs[blob] += 1;
+                ys[blob] += 1;
             }
             break;
         case 5:
-            position.x += 1;
-            position.y -= 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.x -= 1;
-                position.y += 1;
+            xs[blob] += 1;
+            ys[blob] -= 1;
+            if (checkForBlobCollision(world, blob)){
+                xs[blob] -= 1;
+                ys[blob] += 1;
             }
             break;
         case 6:
-            position.x -= 1;
-            position.y += 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.x += 1;
-                position.y -= 1;
+            xs[blob] -= 1;
+            ys[blob] += 1;
+            if (checkForBlobCollision(world, blob)){
+                xs[blob] += 1;
+                ys[blob] -= 1;
             }
             break;
         case 7:
-            position.x += 1;
-            position.y += 1;
-            if (checkForBlobCollision(Simulator.getInstance().blobs)){
-                position.x -= 1;
-                position.y -= 1;
+            xs[blob] += 1;
+            ys[blob] += 1;
+            if (checkForBlobCollision(world, blob)){
+                xs[blob] -= 1;
+                ys[blob] -= 1;
             }
             break;
          }
         
     }
 
-    private boolean checkForBlobCollision(List<Blob> blobs) {
-        // Iterate through all blobs and check for collision with the current blob
-        for (Blob otherBlob : blobs) {
-            if (!otherBlob.equals(this) && distance(position, otherBlob.position) < 10) {
-                // Collision detected
-                return true;
-            }
-        }
-        // No collision
-        return false;
+    private static boolean checkForBlobCollision(World world, int blob) {
+        // Check the blobs in the neighbouring cells for collision with the current blob
+        return world.blobGrid.anyCloserThan(world.blobs.x[blob], world.blobs.y[blob], 10, blob);
     }
-
-
-       // Method to check if a position is adjacent to the blob
-       private boolean isAdjacent(Point other, int distanceThreshold) {
-        return distance(position, other) <= distanceThreshold;
-    }
-
-    private double calculateDynamicWeight(double distance) {
-        // Parameters for the modified Gaussian function
-        double sigma = 0.5; // Adjust this value to control sensitivity
-        double mu = 0.0;   // Center of the Gaussian function should be position of the blob
-    
-        // Modified Gaussian function
-        double exponent = -Math.pow(distance - mu, 2) / (2 * Math.pow(sigma, 2));
-        double dynamicWeight = Math.exp(exponent);
-    
-        return dynamicWeight;
-    }
-
-
-    // Helper method to calculate the Euclidean distance between two points
-    private double distance(Point p1, Point p2) {
-        return Math.sqrt(Math.pow(p1.x - p2.x, 2) + Math.pow(p1.y - p2.y, 2));
-    }
-
-      // Method to check whether the blob has eaten
-      public int getEatenAmount() {
-        return eatenAmount;
-    }
-
-    
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package organisms;
+
+import java.util.Arrays;
+
+import neuralNetwork.BlobNeuralNetwork;
+import simulator.FastRandom;
+
+// All blobs of a world as parallel arrays, a blob is an index. Next to its position every blob has
+// the food it ate, its last action, the index of its network and the state of its own random numbers.
+//
+// Blobs point into a table of networks instead of holding one each, so clones that share their
+// parent's network share one table entry
+public class BlobPopulation extends Positions {
+
+    public int[] eaten;
+    public byte[] lastAction;
+    public int[] networkIndex;
+    public long[] randomState;
+
+    public int numNetworks = 0;
+    public BlobNeuralNetwork[] networks;
+
+    // goes up whenever the network table changes, so copies of the table (PopulationTensor) know when to update
+    public int networkVersion = 0;
+
+    public BlobPopulation(int capacity) {
+        super(capacity);
+        eaten = new int[x.length];
+        lastAction = new byte[x.length];
+        networkIndex = new int[x.length];
+        randomState = new long[x.length];
+        networks = new BlobNeuralNetwork[x.length];
+    }
+
+    // Add a blob that has not eaten and has done nothing yet, returns its index
+    public int add(int newX, int newY, int network, long random) {
+        int blob = add(newX, newY);
+        eaten[blob] = 0;
+        lastAction[blob] = 10;
+        networkIndex[blob] = network;
+        randomState[blob] = random;
+        return blob;
+    }
+
+    // Add a network to the table, returns its index
+    public int addNetwork(BlobNeuralNetwork network) {
+        if (numNetworks == networks.length) {
+            networks = Arrays.copyOf(networks, numNetworks * 2);
+        }
+        networks[numNetworks] = network;
+        networkVersion++;
+        return numNetworks++;
+    }
+
+    public BlobNeuralNetwork networkOf(int blob) {
+        return networks[networkIndex[blob]];
+    }
+
+    // Random int in [0, bound) from the blob's own random numbers, the same as a FastRandom with this state
+    public int nextInt(int blob, int bound) {
+        randomState[blob] += FastRandom.GOLDEN_GAMMA;
+        return FastRandom.boundedInt(FastRandom.mix64(randomState[blob]), bound);
+    }
+
+    // Remove every blob and network. The arrays are kept for the next generation
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(networks, 0, numNetworks, null);
+        numNetworks = 0;
+        networkVersion++;
+    }
+
+    @Override
+    protected void copy(int from, int to) {
+        super.copy(from, to);
+        eaten[to] = eaten[from];
+        lastAction[to] = lastAction[from];
+        networkIndex[to] = networkIndex[from];
+        randomState[to] = randomState[from];
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        super.grow(capacity);
+        eaten = Arrays.copyOf(eaten, capacity);
+        lastAction = Arrays.copyOf(lastAction, capacity);
+        networkIndex = Arrays.copyOf(networkIndex, capacity);
+        randomState = Arrays.copyOf(randomState, capacity);
+    }
+}
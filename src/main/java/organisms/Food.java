@@ -1,11 +0,0 @@
-package organisms;
-
-import simulator.Point;
-
-public class Food {
-    public Point position;
-
-    public Food(Point position) {
-        this.position = position;
-    }
-}
\ No newline at end of file
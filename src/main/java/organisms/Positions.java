@@ -0,0 +1,56 @@
+package organisms;
+
+import java.util.Arrays;
+
+// Positions of a group of things on the map (food, or the blobs of a BlobPopulation), stored as
+// parallel arrays and addressed by index. Removing moves the last entry into the hole, so an index
+// only stays valid until the next removal. The arrays grow when needed and are never shrunk, so a
+// group that is cleared and filled again every generation does not allocate
+public class Positions {
+
+    public int size = 0;
+    public int[] x;
+    public int[] y;
+
+    public Positions(int capacity) {
+        capacity = Math.max(1, capacity);
+        x = new int[capacity];
+        y = new int[capacity];
+    }
+
+    public int add(int newX, int newY) {
+        ensureCapacity(size + 1);
+        x[size] = newX;
+        y[size] = newY;
+        return size++;
+    }
+
+    // Remove entry index, the last entry takes its index
+    public void swapRemove(int index) {
+        int last = size - 1;
+        if (index != last) {
+            copy(last, index);
+        }
+        size--;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    protected void copy(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+    }
+
+    protected void ensureCapacity(int capacity) {
+        if (capacity > x.length) {
+            grow(Math.max(capacity, x.length * 2));
+        }
+    }
+
+    protected void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+    }
+}
@@ -0,0 +1,55 @@
+package organisms;
+
+// The math of the sensors on integer squared distances. Positions are whole numbers, so the squared
+// distance between two of them is a whole number too and the Gaussian weight of a distance can be
+// looked up instead of calling Math.exp for every food and blob in range.
+//
+// The weight drops off so fast that it is 0 as a float after a few pixels, so the tables stop at the
+// first squared distance where both values have underflowed and everything further away is 0
+public final class SensorMath {
+
+    // the weight is exp(-(distance - MU)^2 / (2 * SIGMA^2))
+    public static final double SIGMA = 0.5; // Adjust this value to control sensitivity
+    public static final double MU = 0.0;   // Center of the Gaussian function should be position of the blob
+
+    // weight of every squared distance below the cutoff, and the distance multiplied by its weight
+    private static final float[] WEIGHTS;
+    private static final float[] WEIGHTED_DISTANCES;
+
+    static {
+        int cutoff = 0;
+        while ((float) gaussian(Math.sqrt(cutoff)) != 0 || (float) (Math.sqrt(cutoff) * gaussian(Math.sqrt(cutoff))) != 0) {
+            cutoff++;
+        }
+        WEIGHTS = new float[cutoff];
+        WEIGHTED_DISTANCES = new float[cutoff];
+        for (int i = 0; i < cutoff; i++) {
+            double distance = Math.sqrt(i);
+            WEIGHTS[i] = (float) gaussian(distance);
+            WEIGHTED_DISTANCES[i] = (float) (distance * gaussian(distance));
+        }
+    }
+
+    private SensorMath() {
+    }
+
+    public static long distanceSquared(int x1, int y1, int x2, int y2) {
+        long dx = x1 - x2;
+        long dy = y1 - y2;
+        return dx * dx + dy * dy;
+    }
+
+    // Gaussian weight of the distance whose square is given
+    public static float weight(long distanceSquared) {
+        return distanceSquared < WEIGHTS.length ? WEIGHTS[(int) distanceSquared] : 0;
+    }
+
+    // The distance multiplied by its Gaussian weight, for the distance whose square is given
+    public static float weightedDistance(long distanceSquared) {
+        return distanceSquared < WEIGHTED_DISTANCES.length ? WEIGHTED_DISTANCES[(int) distanceSquared] : 0;
+    }
+
+    private static double gaussian(double distance) {
+        return Math.exp(-(distance - MU) * (distance - MU) / (2 * SIGMA * SIGMA));
+    }
+}
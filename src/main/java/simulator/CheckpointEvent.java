@@ -0,0 +1,34 @@
+package simulator;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for writing a population snapshot
+@Name("blob.Checkpoint")
+@Label("Population Snapshot")
+@Category("Blob Simulator")
+@Description("The whole population written to a single snapshot file")
+@StackTrace(false)
+public class CheckpointEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Generation")
+    public int generation;
+
+    @Label("Population")
+    public int population;
+
+    @Label("Networks")
+    public int networks;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+}
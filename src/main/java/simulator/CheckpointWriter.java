@@ -0,0 +1,152 @@
+package simulator;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import neuralNetwork.BlobNeuralNetwork;
+
+// Saves model checkpoints on a background thread. The simulation thread only takes a snapshot of the
+// parameters, the slow DL4J zip serialization happens on the worker.
+//
+// A checkpoint is taken every interval generations. Of those, only the keepLast most recent and the
+// keepBest with the highest fitness stay on disk, older ones are deleted. When both are 0 every
+// checkpoint is kept
+public class CheckpointWriter {
+
+    private static final String MODELS_FOLDER = "models/";
+
+    private static class Checkpoint {
+        final BlobNeuralNetwork network;
+        final String path;
+        final int generation;
+        final double fitness;
+
+        Checkpoint(BlobNeuralNetwork network, String path, int generation, double fitness) {
+            this.network = network;
+            this.path = path;
+            this.generation = generation;
+            this.fitness = fitness;
+        }
+    }
+
+    // put on the queue to stop the worker once everything before it is written
+    private static final Checkpoint STOP = new Checkpoint(null, null, -1, 0);
+
+    private final int interval;
+    private final int keepLast;
+    private final int keepBest;
+    private final BlockingQueue<Checkpoint> queue;
+    private final Thread worker;
+
+    // only used by the worker thread
+    private final ArrayDeque<Checkpoint> lastWritten = new ArrayDeque<>();
+    private final List<Checkpoint> bestWritten = new ArrayList<>();
+
+    private int skipped = 0;
+
+    public CheckpointWriter(int interval, int keepLast, int keepBest, int queueSize) {
+        this.interval = interval;
+        boolean keepAll = keepLast <= 0 && keepBest <= 0;
+        this.keepLast = keepAll ? Integer.MAX_VALUE : Math.max(0, keepLast);
+        this.keepBest = keepAll ? Integer.MAX_VALUE : Math.max(0, keepBest);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueSize));
+
+        worker = new Thread(this::writeCheckpoints, "checkpoint-writer");
+        worker.start();
+    }
+
+    public boolean isDue(int generation) {
+        return interval > 0 && generation % interval == 0;
+    }
+
+    // Checkpoint the network if this generation is due. Never waits: if the worker is still busy with
+    // a full queue of earlier checkpoints this one is skipped
+    public void checkpoint(BlobNeuralNetwork network, int generation, double fitness) {
+        if (!isDue(generation)) {
+            return;
+        }
+        Checkpoint checkpoint = new Checkpoint(network.snapshot(), "trained_blob_model_generation_" + generation + ".zip", generation, fitness);
+        if (!queue.offer(checkpoint)) {
+            skipped++;
+        }
+    }
+
+    // Save a model that is always kept, like the final model. Waits for room in the queue
+    public void save(BlobNeuralNetwork network, String path) {
+        enqueue(new Checkpoint(network.snapshot(), path, -1, 0));
+    }
+
+    // Number of checkpoints that were skipped because the worker could not keep up
+    public int getSkipped() {
+        return skipped;
+    }
+
+    // Write everything that is still queued and stop the worker
+    public void close() {
+        enqueue(STOP);
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enqueue(Checkpoint checkpoint) {
+        try {
+            queue.put(checkpoint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeCheckpoints() {
+        while (true) {
+            Checkpoint checkpoint;
+            try {
+                checkpoint = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (checkpoint == STOP) {
+                return;
+            }
+
+            try {
+                checkpoint.network.saveModel(checkpoint.path, false);
+                if (checkpoint.generation >= 0) {
+                    applyRetention(checkpoint);
+                }
+            } catch (RuntimeException e) {
+                // keep the worker alive, a failed checkpoint should not stop the ones after it
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void applyRetention(Checkpoint written) {
+        List<Checkpoint> dropped = new ArrayList<>();
+
+        lastWritten.addLast(written);
+        if (lastWritten.size() > keepLast) {
+            dropped.add(lastWritten.removeFirst());
+        }
+
+        bestWritten.add(written);
+        bestWritten.sort(Comparator.comparingDouble((Checkpoint c) -> c.fitness).reversed());
+        if (bestWritten.size() > keepBest) {
+            dropped.add(bestWritten.remove(bestWritten.size() - 1));
+        }
+
+        // a checkpoint can be one of the last and one of the best, only delete it once it is neither
+        for (Checkpoint checkpoint : dropped) {
+            if (!lastWritten.contains(checkpoint) && !bestWritten.contains(checkpoint)) {
+                new File(MODELS_FOLDER + checkpoint.path).delete();
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package simulator;
+
+import java.util.Random;
+
+// Small and fast random number generator (SplitMix64). The whole state is one long, so it can be
+// saved and restored, and it is not synchronized like java.util.Random, so every thread or world
+// should use its own instance
+public class FastRandom extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    public FastRandom(long seed) {
+        // Random(long) calls setSeed, which sets the state
+        super(seed);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        state = seed;
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    // Seed of a new random stream whose numbers are independent of the numbers of this one, e.g. the
+    // random state of a blob, which is kept as a bare long
+    public long splitSeed() {
+        return mix64(nextLong() ^ GOLDEN_GAMMA);
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) nextLong();
+    }
+
+    // Multiply and shift instead of rejection sampling, the bias is at most bound / 2^32
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        return boundedInt(nextLong(), bound);
+    }
+
+    // Turn 64 random bits into an int in [0, bound)
+    public static int boundedInt(long bits, int bound) {
+        return (int) (((bits >>> 32) * bound) >>> 32);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    // Marsaglia polar method. Unlike java.util.Random the second value is not kept, so the state
+    // stays a single long
+    @Override
+    public double nextGaussian() {
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        return v1 * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,35 @@
+package simulator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for the turnover at the end of a generation (World.createNewGeneration)
+@Name("blob.Generation")
+@Label("Generation Turnover")
+@Category("Blob Simulator")
+@Description("Selection, crossover and mutation that create the next generation")
+@StackTrace(false)
+public class GenerationEvent extends Event {
+
+    @Label("Generation")
+    public int generation;
+
+    @Label("Population")
+    public int population;
+
+    @Label("Survivors")
+    public int survivors;
+
+    @Label("Next Population")
+    public int nextPopulation;
+
+    @Label("Food Left")
+    public int foodLeft;
+
+    @Label("Best Fitness")
+    public double bestFitness;
+}
@@ -0,0 +1,65 @@
+package simulator;
+
+import neuralNetwork.BlobNeuralNetwork;
+
+// Runs the simulation without a window, as fast as the CPU allows. Useful for training on servers.
+//
+// Options:
+//   --steps N       stop after N simulation steps
+//   --seconds N     stop after N seconds of wall-clock time
+//   --progress N    print a progress line every N generations (default 100)
+//   --backend NAME  java, tensor, quantized or nd4j, which implementation runs the neural networks
+//   --seed N        seed of all random numbers, the same seed gives the same run
+//   --resume        continue from the last population snapshot instead of starting over
+//   --no-zips       save no checkpoint or final model zips, so DL4J and its native backend are never loaded
+public class HeadlessMain {
+    public static void main(String[] args) {
+        long stepBudget = 0;
+        long timeBudgetMillis = 0;
+        int progressInterval = 100;
+        Long seed = null;
+        BlobNeuralNetwork.Backend backend = null;
+        boolean resume = false;
+        boolean saveModelZips = true;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--steps":
+                    stepBudget = Long.parseLong(args[++i]);
+                    break;
+                case "--seconds":
+                    timeBudgetMillis = Long.parseLong(args[++i]) * 1000;
+                    break;
+                case "--progress":
+                    progressInterval = Integer.parseInt(args[++i]);
+                    break;
+                case "--backend":
+                    backend = BlobNeuralNetwork.Backend.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--resume":
+                    resume = true;
+                    break;
+                case "--no-zips":
+                    saveModelZips = false;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(1);
+            }
+        }
+
+        Simulator simulator = Simulator.getInstance();
+        if (seed != null) {
+            simulator.config.seed = seed;
+        }
+        if (backend != null) {
+            simulator.config.backend = backend;
+        }
+        simulator.config.saveModelZips = saveModelZips;
+        simulator.initializeSimulation(resume);
+        simulator.runHeadless(stepBudget, timeBudgetMillis, Math.max(1, progressInterval));
+    }
+}
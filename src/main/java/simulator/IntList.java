@@ -0,0 +1,43 @@
+package simulator;
+
+import java.util.Arrays;
+
+// Growable list of ints without boxing, used as reusable scratch space for grid queries
+public class IntList {
+
+    private int[] items = new int[16];
+    private int size = 0;
+
+    public void add(int value) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+        }
+        items[size++] = value;
+    }
+
+    public int get(int index) {
+        return items[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // Largest value first
+    public void sortDescending() {
+        // the lists are short, insertion sort is enough
+        for (int i = 1; i < size; i++) {
+            int value = items[i];
+            int j = i;
+            while (j > 0 && items[j - 1] < value) {
+                items[j] = items[j - 1];
+                j--;
+            }
+            items[j] = value;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import neuralNetwork.BlobNeuralNetwork;
+
+// Island model evolution: several independent worlds (islands) evolve at the same time, one per
+// thread. Every migrationInterval generations the islands pause and the best networks of each
+// island are copied to the next island in a ring, so good solutions spread between the islands
+// while each island keeps searching its own part of the space
+public class IslandEvolution {
+
+    public final List<World> islands = new ArrayList<>();
+
+    // generations every island runs between two migrations
+    public int migrationInterval = 10;
+
+    // amount of networks every island sends to its neighbour
+    public int migrants = 2;
+
+    private final ExecutorService executor;
+
+    public IslandEvolution(SimulationConfig config, int numIslands) {
+        if (numIslands < 1) {
+            throw new IllegalArgumentException("An island evolution needs at least one island, got " + numIslands);
+        }
+        // every island gets its own seed, derived from the seed of the settings
+        FastRandom seeds = new FastRandom(config.seed);
+        for (int i = 0; i < numIslands; i++) {
+            SimulationConfig islandConfig = config.copy();
+            islandConfig.seed = seeds.nextLong();
+            // every island already has a thread of its own
+            islandConfig.simulationThreads = 1;
+            islands.add(new World(islandConfig));
+        }
+        executor = Executors.newFixedThreadPool(numIslands);
+    }
+
+    // Evolve every island for the given amount of generations
+    public void run(int generations) throws InterruptedException, ExecutionException {
+        int done = 0;
+        while (done < generations) {
+            int epoch = Math.min(migrationInterval, generations - done);
+
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (World island : islands) {
+                tasks.add(() -> {
+                    for (int i = 0; i < epoch; i++) {
+                        island.runGeneration();
+                    }
+                    return null;
+                });
+            }
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                // rethrow anything that went wrong on an island
+                future.get();
+            }
+
+            done += epoch;
+            migrate();
+            printProgress(done);
+            Metrics.printSummary(System.out, "generation " + done);
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        for (World island : islands) {
+            island.shutdown();
+        }
+    }
+
+    // The best network of the last generation over all islands, or null if nothing survived
+    public BlobNeuralNetwork bestNetwork() {
+        BlobNeuralNetwork best = null;
+        double bestFitness = Double.NEGATIVE_INFINITY;
+        for (World island : islands) {
+            if (!island.survivors.isEmpty()) {
+                double fitness = island.bestFitness();
+                if (fitness > bestFitness) {
+                    bestFitness = fitness;
+                    best = island.survivors.get(0);
+                }
+            }
+        }
+        return best;
+    }
+
+    // Ring migration, island i sends copies of its best survivors to island i + 1
+    private void migrate() {
+        if (islands.size() < 2) {
+            return;
+        }
+
+        // pick every island's migrants before any island receives new ones
+        List<List<BlobNeuralNetwork>> outgoing = new ArrayList<>();
+        for (World island : islands) {
+            List<BlobNeuralNetwork> best = new ArrayList<>();
+            for (int i = 0; i < migrants && i < island.survivors.size(); i++) {
+                best.add(island.survivors.get(i));
+            }
+            outgoing.add(best);
+        }
+
+        for (int i = 0; i < islands.size(); i++) {
+            islands.get((i + 1) % islands.size()).acceptMigrants(outgoing.get(i));
+        }
+    }
+
+    private void printProgress(int generations) {
+        StringBuilder line = new StringBuilder("Generation " + generations);
+        for (int i = 0; i < islands.size(); i++) {
+            World island = islands.get(i);
+            line.append(String.format(" | island %d: blobs %d, survival rate %.3f", i, island.blobs.size, island.survivalRate));
+        }
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,70 @@
+package simulator;
+
+import neuralNetwork.BlobNeuralNetwork;
+
+// Runs island model evolution headless, one world per thread.
+//
+// Options:
+//   --islands N      number of worlds evolving at the same time (default: number of cores)
+//   --generations N  generations every island runs (default 1000)
+//   --interval N     generations between two migrations (default 10)
+//   --migrants N     networks every island sends to its neighbour at a migration (default 2)
+//   --backend NAME   java, tensor, quantized or nd4j, which implementation runs the neural networks
+//   --seed N         seed the seeds of all islands are derived from
+public class IslandMain {
+    public static void main(String[] args) throws Exception {
+        int numIslands = Runtime.getRuntime().availableProcessors();
+        int generations = 1000;
+        int migrationInterval = 10;
+        int migrants = 2;
+        SimulationConfig config = new SimulationConfig();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--islands":
+                    numIslands = Integer.parseInt(args[++i]);
+                    break;
+                case "--generations":
+                    generations = Integer.parseInt(args[++i]);
+                    break;
+                case "--interval":
+                    migrationInterval = Integer.parseInt(args[++i]);
+                    break;
+                case "--migrants":
+                    migrants = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    config.seed = Long.parseLong(args[++i]);
+                    break;
+                case "--backend":
+                    config.backend = BlobNeuralNetwork.Backend.valueOf(args[++i].toUpperCase());
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    printUsage();
+                    System.exit(1);
+            }
+        }
+        if (numIslands < 1) {
+            System.err.println("--islands must be at least 1, got " + numIslands);
+            printUsage();
+            System.exit(1);
+        }
+
+        IslandEvolution evolution = new IslandEvolution(config, numIslands);
+        evolution.migrationInterval = Math.max(1, migrationInterval);
+        evolution.migrants = migrants;
+
+        evolution.run(generations);
+
+        BlobNeuralNetwork best = evolution.bestNetwork();
+        if (best != null) {
+            best.saveModel("island_best_model.zip");
+        }
+        evolution.shutdown();
+    }
+
+    private static void printUsage() {
+        System.err.println("Usage: IslandMain [--islands N] [--generations N] [--interval N] [--migrants N] [--backend NAME] [--seed N]");
+    }
+}
@@ -11,6 +11,7 @@ public class Main {
 
         SwingUtilities.invokeLater(() -> {
             Simulator simulator = Simulator.getInstance();
+            simulator.initializeSimulation(false);
             simulator.runSimulation();
         });
 
@@ -0,0 +1,153 @@
+package simulator;
+
+import java.io.PrintStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Timers and counters for the hot path. Turned on with -Dblob.metrics=true, otherwise ENABLED is a
+// constant false and the JIT removes every call, so switched off it costs nothing.
+//
+// Every thread records into its own histograms, so recording never locks or contends. A summary
+// adds up the histograms of all threads and reports what happened since the previous summary.
+//
+// Usage:
+//   long start = Metrics.start();
+//   ... work ...
+//   Metrics.stop(Metrics.Phase.SENSING, start);
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("blob.metrics");
+
+    public enum Phase { SENSING, INFERENCE, MOVEMENT, EATING, TURNOVER, CHECKPOINT }
+
+    public enum Counter { INFERENCES, FOOD_EATEN }
+
+    // log-linear buckets: exact below 8 ns, after that 8 buckets per power of two (at most 12.5% off)
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private static final int PHASES = Phase.values().length;
+    private static final int COUNTERS = Counter.values().length;
+
+    // only written by the thread that owns it
+    private static final class Recorder {
+        final long[][] histograms = new long[PHASES][BUCKETS];
+        final long[] totalNanos = new long[PHASES];
+        final long[] counters = new long[COUNTERS];
+    }
+
+    private static final ConcurrentLinkedQueue<Recorder> RECORDERS = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Recorder> RECORDER = ThreadLocal.withInitial(() -> {
+        Recorder recorder = new Recorder();
+        RECORDERS.add(recorder);
+        return recorder;
+    });
+
+    // totals at the previous summary, only used by the thread that prints summaries
+    private static final Recorder previous = new Recorder();
+
+    private Metrics() {
+    }
+
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    // Record the time since start for the phase. Returns the current time, so the next phase can
+    // start from it without asking the clock again
+    public static long stop(Phase phase, long start) {
+        if (!ENABLED) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long nanos = now - start;
+        Recorder recorder = RECORDER.get();
+        recorder.histograms[phase.ordinal()][bucket(nanos)]++;
+        recorder.totalNanos[phase.ordinal()] += nanos;
+        return now;
+    }
+
+    public static void count(Counter counter, long amount) {
+        if (ENABLED) {
+            RECORDER.get().counters[counter.ordinal()] += amount;
+        }
+    }
+
+    // Print count, p50, p99 and total time of every phase and the counters since the last summary.
+    // The values of other threads are read without locking, samples recorded while printing may
+    // show up in this summary or in the next one
+    public static synchronized void printSummary(PrintStream out, String title) {
+        if (!ENABLED) {
+            return;
+        }
+        Recorder total = new Recorder();
+        for (Recorder recorder : RECORDERS) {
+            for (int phase = 0; phase < PHASES; phase++) {
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    total.histograms[phase][bucket] += recorder.histograms[phase][bucket];
+                }
+                total.totalNanos[phase] += recorder.totalNanos[phase];
+            }
+            for (int counter = 0; counter < COUNTERS; counter++) {
+                total.counters[counter] += recorder.counters[counter];
+            }
+        }
+
+        StringBuilder summary = new StringBuilder("Metrics " + title);
+        long[] interval = new long[BUCKETS];
+        for (Phase phase : Phase.values()) {
+            int p = phase.ordinal();
+            long count = 0;
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                interval[bucket] = total.histograms[p][bucket] - previous.histograms[p][bucket];
+                count += interval[bucket];
+            }
+            long nanos = total.totalNanos[p] - previous.totalNanos[p];
+            if (count > 0) {
+                summary.append(String.format("%n  %-10s n=%-10d p50=%10.1f us  p99=%10.1f us  total=%10.1f ms",
+                        phase, count, percentile(interval, count, 0.50) / 1e3, percentile(interval, count, 0.99) / 1e3, nanos / 1e6));
+            }
+        }
+        for (Counter counter : Counter.values()) {
+            summary.append(String.format("%n  %-10s %d", counter, total.counters[counter.ordinal()] - previous.counters[counter.ordinal()]));
+        }
+        out.println(summary);
+
+        for (int phase = 0; phase < PHASES; phase++) {
+            System.arraycopy(total.histograms[phase], 0, previous.histograms[phase], 0, BUCKETS);
+        }
+        System.arraycopy(total.totalNanos, 0, previous.totalNanos, 0, PHASES);
+        System.arraycopy(total.counters, 0, previous.counters, 0, COUNTERS);
+    }
+
+    private static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(0, nanos);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // smallest value that falls in the bucket
+    private static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    private static long percentile(long[] histogram, long count, double fraction) {
+        long rank = (long) Math.ceil(fraction * count);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histogram[bucket];
+            if (seen >= rank) {
+                return lowerBound(bucket);
+            }
+        }
+        return lowerBound(BUCKETS - 1);
+    }
+}
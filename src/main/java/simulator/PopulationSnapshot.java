@@ -0,0 +1,285 @@
+package simulator;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.JavaForwardPass;
+import neuralNetwork.QuantizedNetwork;
+import organisms.BlobPopulation;
+import organisms.Positions;
+
+// Binary snapshot of a whole world in a single file: every blob, its network and random number
+// state, the food and the counters of the world. The layer sizes are stored once and the
+// parameters of all networks are one contiguous block at the end of the file, so loading maps
+// the file and copies the parameters straight into the networks.
+//
+// Layout, little endian:
+//   int magic, int version
+//   int generation, int simulationStep, int numOfStartingBlobs, long world random state
+//   int number of layer sizes, int[] layer sizes
+//   int networks, int parameters per network, int blobs, int foods, int encoding
+//   long stepNanos, long inferenceNanos, int actions, long[] actionCounts, int mutation amount
+//   blobs: int x, int y, int eatenAmount, int lastActionTaken, int network index, long random state
+//   foods: int x, int y
+//   FLOAT32: float[networks * parameters per network]
+//   INT8: every network as written by QuantizedNetwork.write, about a quarter of the size
+//
+// INT8 snapshots load the rounded weights, so a run resumed from one continues with slightly different
+// networks.
+//
+// The step timings and action counts of the current generation are stored too, so when a run stops in
+// the middle of a generation and is resumed, the statistics line of that generation still covers
+// all of its steps
+//
+// The networks are the network table of the population, so blobs that share a network (plain clones)
+// share it in the file too
+public class PopulationSnapshot {
+
+    public static final Path DEFAULT_PATH = Paths.get("models", "population_snapshot.bin");
+
+    private static final int MAGIC = 0x424C4F42; // "BLOB"
+    private static final int VERSION = 1;
+
+    public enum Encoding { FLOAT32, INT8 }
+
+    // magic, version, generation, step, starting blobs, random state and the number of layer sizes
+    private static final int MIN_HEADER_BYTES = 6 * Integer.BYTES + Long.BYTES;
+
+    private static final int BLOB_BYTES = 5 * Integer.BYTES + Long.BYTES;
+    private static final int FOOD_BYTES = 2 * Integer.BYTES;
+
+    // Write the world to path with the encoding of the settings of the world
+    public static void write(World world, Path path) throws IOException {
+        write(world, path, world.config.snapshotEncoding);
+    }
+
+    // Write the world to path. The file is written next to it first and then moved over it,
+    // so a crash while writing never leaves a broken snapshot behind
+    public static void write(World world, Path path, Encoding encoding) throws IOException {
+        CheckpointEvent event = new CheckpointEvent();
+        event.begin();
+
+        BlobPopulation blobs = world.blobs;
+        Positions foods = world.foods;
+
+        int[] layerSizes = world.blobNetwork.getLayerSizes();
+        int numParams = JavaForwardPass.numParams(layerSizes);
+
+        int headerBytes = 2 * Integer.BYTES + 3 * Integer.BYTES + Long.BYTES
+                + Integer.BYTES + layerSizes.length * Integer.BYTES + 5 * Integer.BYTES
+                + 2 * Long.BYTES + Integer.BYTES + world.actionCounts.length * Long.BYTES + Integer.BYTES;
+        ByteBuffer header = ByteBuffer.allocate(headerBytes + blobs.size * BLOB_BYTES + foods.size * FOOD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        header.putInt(MAGIC).putInt(VERSION);
+        header.putInt(world.currentGeneration).putInt(world.simulationStep).putInt(world.numOfStartingBlobs);
+        header.putLong(world.random.getState());
+        header.putInt(layerSizes.length);
+        for (int size : layerSizes) {
+            header.putInt(size);
+        }
+        header.putInt(blobs.numNetworks).putInt(numParams).putInt(blobs.size).putInt(foods.size);
+        header.putInt(encoding.ordinal());
+        header.putLong(world.stepNanos).putLong(world.inferenceNanos);
+        header.putInt(world.actionCounts.length);
+        for (long count : world.actionCounts) {
+            header.putLong(count);
+        }
+        header.putInt(world.mutationAmount);
+
+        for (int i = 0; i < blobs.size; i++) {
+            header.putInt(blobs.x[i]).putInt(blobs.y[i]);
+            header.putInt(blobs.eaten[i]).putInt(blobs.lastAction[i]);
+            header.putInt(blobs.networkIndex[i]);
+            header.putLong(blobs.randomState[i]);
+        }
+        for (int i = 0; i < foods.size; i++) {
+            header.putInt(foods.x[i]).putInt(foods.y[i]);
+        }
+        header.flip();
+
+        Path parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        // a plain sibling file instead of Files.createTempFile, which would make the snapshot readable by the owner only
+        Path temp = parent.resolve(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+
+            // one network at a time through a reused buffer
+            if (encoding == Encoding.INT8) {
+                QuantizedNetwork quantized = new QuantizedNetwork(layerSizes);
+                ByteBuffer params = ByteBuffer.allocate(QuantizedNetwork.encodedSize(layerSizes)).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < blobs.numNetworks; i++) {
+                    quantized.quantize(blobs.networks[i].getParams());
+                    params.clear();
+                    quantized.write(params);
+                    params.flip();
+                    writeFully(channel, params);
+                }
+            } else {
+                ByteBuffer params = ByteBuffer.allocate(numParams * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < blobs.numNetworks; i++) {
+                    params.clear();
+                    params.asFloatBuffer().put(blobs.networks[i].getParams());
+                    writeFully(channel, params);
+                }
+            }
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path.toString();
+            event.generation = world.currentGeneration;
+            event.population = blobs.size;
+            event.networks = blobs.numNetworks;
+            event.bytes = Files.size(path);
+            event.commit();
+        }
+    }
+
+    // Replace the blobs, networks, food, random state and counters of the world with the ones in the
+    // snapshot. The networks are copies of world.blobNetwork, so the layer sizes have to match
+    public static void read(Path path, World world) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < MIN_HEADER_BYTES) {
+                throw new IOException(path + " is too short to be a population snapshot");
+            }
+            // the mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+
+        try {
+            readMapped(path, file, world);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(path + " is truncated", e);
+        }
+    }
+
+    private static void readMapped(Path path, MappedByteBuffer file, World world) throws IOException {
+        if (file.getInt() != MAGIC) {
+            throw new IOException(path + " is not a population snapshot");
+        }
+        int version = file.getInt();
+        if (version != VERSION) {
+            throw new IOException(path + " has version " + version + ", expected " + VERSION);
+        }
+
+        int generation = file.getInt();
+        int simulationStep = file.getInt();
+        int numOfStartingBlobs = file.getInt();
+        long randomState = file.getLong();
+
+        int[] layerSizes = new int[file.getInt()];
+        for (int i = 0; i < layerSizes.length; i++) {
+            layerSizes[i] = file.getInt();
+        }
+        BlobNeuralNetwork template = world.blobNetwork;
+        if (!Arrays.equals(layerSizes, template.getLayerSizes())) {
+            throw new IOException(path + " has layer sizes " + Arrays.toString(layerSizes)
+                    + ", the world uses " + Arrays.toString(template.getLayerSizes()));
+        }
+
+        int numNetworks = file.getInt();
+        int numParams = file.getInt();
+        int numBlobs = file.getInt();
+        int numFoods = file.getInt();
+        int encodingIndex = file.getInt();
+        if (encodingIndex < 0 || encodingIndex >= Encoding.values().length) {
+            throw new IOException(path + " has unknown parameter encoding " + encodingIndex);
+        }
+        Encoding encoding = Encoding.values()[encodingIndex];
+
+        long stepNanos = file.getLong();
+        long inferenceNanos = file.getLong();
+        long[] actionCounts = new long[file.getInt()];
+        if (actionCounts.length != world.actionCounts.length) {
+            throw new IOException(path + " counts " + actionCounts.length + " actions, the world has " + world.actionCounts.length);
+        }
+        for (int i = 0; i < actionCounts.length; i++) {
+            actionCounts[i] = file.getLong();
+        }
+        int mutationAmount = file.getInt();
+
+        // the parameters come after the blobs and foods
+        ByteBuffer paramBytes = file.duplicate();
+        paramBytes.position(file.position() + numBlobs * BLOB_BYTES + numFoods * FOOD_BYTES);
+        paramBytes = paramBytes.slice().order(ByteOrder.LITTLE_ENDIAN);
+        long networkBytes = encoding == Encoding.INT8 ? QuantizedNetwork.encodedSize(layerSizes) : (long) numParams * Float.BYTES;
+        if (paramBytes.remaining() != numNetworks * networkBytes) {
+            throw new IOException(path + " is truncated");
+        }
+
+        BlobPopulation blobs = world.blobs;
+        blobs.clear();
+        FloatBuffer params = paramBytes.asFloatBuffer();
+        QuantizedNetwork quantized = new QuantizedNetwork(layerSizes);
+        for (int i = 0; i < numNetworks; i++) {
+            BlobNeuralNetwork network = template.clone();
+            if (encoding == Encoding.INT8) {
+                quantized.read(paramBytes);
+                quantized.dequantize(network.getParams());
+            } else {
+                params.get(network.getParams());
+            }
+            network.paramsChanged();
+            blobs.addNetwork(network);
+        }
+
+        for (int i = 0; i < numBlobs; i++) {
+            int x = file.getInt();
+            int y = file.getInt();
+            int eaten = file.getInt();
+            int lastAction = file.getInt();
+            int network = file.getInt();
+            if (network < 0 || network >= numNetworks) {
+                throw new IOException(path + " has a blob with network " + network + " out of " + numNetworks);
+            }
+            int blob = blobs.add(x, y, network, file.getLong());
+            blobs.eaten[blob] = eaten;
+            blobs.lastAction[blob] = (byte) lastAction;
+        }
+
+        Positions foods = world.foods;
+        foods.clear();
+        for (int i = 0; i < numFoods; i++) {
+            foods.add(file.getInt(), file.getInt());
+        }
+
+        world.blobGrid.rebuild(blobs);
+        world.foodGrid.rebuild(foods);
+        world.survivors.clear();
+        if (numNetworks > 0) {
+            world.blobNetwork = blobs.networks[0];
+        }
+
+        world.random.setState(randomState);
+        world.currentGeneration = generation;
+        world.simulationStep = simulationStep;
+        world.numOfStartingBlobs = numOfStartingBlobs;
+        world.stepNanos = stepNanos;
+        world.inferenceNanos = inferenceNanos;
+        System.arraycopy(actionCounts, 0, world.actionCounts, 0, actionCounts.length);
+        world.mutationAmount = mutationAmount;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package simulator;
+
+import java.util.Random;
+
+// Picks parents for crossover out of the survivors of a generation. Works on an array with the
+// fitness of every candidate so the fitness is only calculated once per generation
+public class Selection {
+
+    public enum Method {
+        // the fittest of tournamentSize random candidates wins
+        TOURNAMENT,
+        // every candidate is picked with a chance proportional to its fitness (roulette wheel)
+        FITNESS_PROPORTIONAL
+    }
+
+    private final Method method;
+    private final int tournamentSize;
+
+    public Selection(Method method, int tournamentSize) {
+        this.method = method;
+        this.tournamentSize = Math.max(1, tournamentSize);
+    }
+
+    // Index of the picked candidate, fitness holds the fitness of the first count candidates
+    public int select(double[] fitness, int count, Random random) {
+        return select(fitness, count, -1, random);
+    }
+
+    // Like select, but never picks candidate exclude (e.g. the first parent), so count has to be at least 2
+    // when exclude is one of the candidates. -1 excludes nobody
+    public int select(double[] fitness, int count, int exclude, Random random) {
+        if (method == Method.TOURNAMENT) {
+            return tournament(fitness, count, exclude, random);
+        }
+        return fitnessProportional(fitness, count, exclude, random);
+    }
+
+    private int tournament(double[] fitness, int count, int exclude, Random random) {
+        int best = randomCandidate(count, exclude, random);
+        for (int i = 1; i < tournamentSize; i++) {
+            int candidate = randomCandidate(count, exclude, random);
+            if (fitness[candidate] > fitness[best]) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private int fitnessProportional(double[] fitness, int count, int exclude, Random random) {
+        // shift everything up if there is a negative fitness so every chance stays positive
+        double min = 0;
+        for (int i = 0; i < count; i++) {
+            if (i != exclude) {
+                min = Math.min(min, fitness[i]);
+            }
+        }
+        double total = 0;
+        for (int i = 0; i < count; i++) {
+            if (i != exclude) {
+                total += fitness[i] - min;
+            }
+        }
+        if (total <= 0) {
+            return randomCandidate(count, exclude, random);
+        }
+
+        double target = random.nextDouble() * total;
+        int last = -1;
+        for (int i = 0; i < count; i++) {
+            if (i == exclude) {
+                continue;
+            }
+            target -= fitness[i] - min;
+            if (target < 0) {
+                return i;
+            }
+            last = i;
+        }
+        return last;
+    }
+
+    // uniform over the candidates other than exclude
+    private static int randomCandidate(int count, int exclude, Random random) {
+        if (exclude < 0 || exclude >= count) {
+            return random.nextInt(count);
+        }
+        int candidate = random.nextInt(count - 1);
+        return candidate >= exclude ? candidate + 1 : candidate;
+    }
+}
@@ -0,0 +1,143 @@
+package simulator;
+
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.CrossoverEngine;
+import neuralNetwork.MutationEngine;
+
+// SETTINGS FOR THE SIMULATION
+// Every world has its own copy, so several worlds with different settings can run side by side
+public class SimulationConfig implements Cloneable {
+
+    // seed of all random numbers of a world, the same seed and settings give the same run
+    public long seed = System.nanoTime();
+
+    public int numOfInputSensors = 25;
+
+    // good start for number of inner neurons is number of input neurons + number of output neurons / 2
+    public int numOfHiddenNeurons = 18;
+    public int numOfOutputNeurons = 11;
+
+    // size of the blobs
+    public int blobSize = 10;
+
+    // size of the map
+    public int mapSize = 800;
+
+    // amount of simulations each generationcvf
+    public int maxSimulationSteps = 50;
+
+    // amouunt of total generations
+    public int maxGenerations = 100000;
+
+    // max amount of blobs at every generation
+    public int maxNumOfBlobs = 30;
+
+    // amount of food for each generation
+    public int foodAmount = 50;
+
+    // initial blob amount
+    public int blobAmount = 10;
+
+    // reproduction of clone amount of original blob
+    public int cloneSpawnAmount = 1;
+
+    // 10 percent chance that each connection will be changed to a different weight
+    public double mutationRate = 0.1;
+
+    // how much the mutation will change the weight by (will be negative or positive). For SHIFTED_UNIFORM
+    // every weight changes by mutationRate * (random between 0 and 1 - mutationChangeAmount), for GAUSSIAN
+    // this is the standard deviation of the change and for UNIFORM the largest change
+    public double mutationChangeAmount = 10;
+
+    // distribution the change of a mutated weight is drawn from. SHIFTED_UNIFORM is the original mutation of
+    // every output weight. GAUSSIAN and UNIFORM change a mutationRate share of the weights and biases
+    // instead, which works well with e.g. mutationChangeAmount = 0.5, mutatedLayers = null and
+    // compoundMutationAmount = false
+    public MutationEngine.Distribution mutationDistribution = MutationEngine.Distribution.SHIFTED_UNIFORM;
+
+    // layers that are mutated (0 is the first hidden layer, 3 the output layer), null mutates the whole network
+    public int[] mutatedLayers = {3};
+
+    // chance that a mutated clone is a child of its parent and another survivor instead of a plain copy.
+    // The child is still mutated afterwards. 0 keeps evolution mutation-only, set it to e.g. 0.5 to turn
+    // crossover on (crossoverMode and selectionMethod then pick how)
+    public double crossoverRate = 0;
+
+    // how the parameters of the two parents are mixed
+    public CrossoverEngine.Mode crossoverMode = CrossoverEngine.Mode.UNIFORM;
+
+    // number of cut points when crossoverMode is K_POINT
+    public int crossoverPoints = 2;
+
+    // how the second parent is picked out of the survivors
+    public Selection.Method selectionMethod = Selection.Method.TOURNAMENT;
+
+    // amount of survivors competing in a tournament, more means only the best survivors become parents
+    public int tournamentSize = 3;
+
+    // generations between two saved models of the best blob, 0 turns checkpoints off
+    public int checkpointInterval = 10;
+
+    // false saves no DL4J model zips at all, neither checkpoints nor the final model. The population
+    // snapshots still are, and a run with the JAVA, TENSOR or QUANTIZED backend then never loads DL4J
+    public boolean saveModelZips = true;
+
+    // checkpoints that stay on disk: the most recent ones and the ones with the highest fitness.
+    // Older checkpoints are deleted, keep both at 0 to keep every checkpoint
+    public int keepLastCheckpoints = 5;
+    public int keepBestCheckpoints = 5;
+
+    // checkpoints waiting to be written, when the writer falls this far behind new checkpoints are skipped
+    public int checkpointQueueSize = 4;
+
+    // generations between two population snapshots (the whole world in one file, see PopulationSnapshot),
+    // 0 turns them off. Every snapshot replaces the previous one
+    public int snapshotInterval = 100;
+
+    // how the networks are stored in population snapshots. INT8 files are about four times smaller
+    // but a resumed run continues with the rounded weights
+    public PopulationSnapshot.Encoding snapshotEncoding = PopulationSnapshot.Encoding.FLOAT32;
+
+    // generations between two flushes of generation_statistics.tsv
+    public int statisticsFlushInterval = 100;
+
+    // generations between two summaries of the metrics, when they are turned on with -Dblob.metrics=true, 0 only prints one at the end
+    public int metricsInterval = 100;
+
+    // frames the window draws at most every second, the simulation does not wait for the window
+    public int maxFramesPerSecond = 30;
+
+    // sensing range of the blobs
+    public int sensingRange = 300;
+
+    // size of the cells of the spatial grid, somewhere between the blob size and the sensing range.
+    // Smaller cells make collision and eating checks cheaper, larger cells make sensing cheaper
+    public int gridCellSize = 50;
+
+    // which implementation runs the neural networks, see BlobNeuralNetwork.Backend
+    public BlobNeuralNetwork.Backend backend = BlobNeuralNetwork.Backend.JAVA;
+
+    // threads used to sense and decide in parallel, 1 runs every step on the simulation thread
+    public int simulationThreads = Runtime.getRuntime().availableProcessors();
+
+
+    // how random the mutation will be. Every mutated clone multiplies the mutation amount by a random factor
+    // between minRange and maxRange. For example, if minRange is 0 and maxRange is 2, the mutation amount will be
+    // between 0 and double the mutation amount. Keep both at 1 if you don't want to change the mutation amount
+    public double minRange = 0;
+    public double maxRange = 0.75;
+
+    // true keeps the random factor in the mutation amount for every later clone, rounded down to a whole
+    // number, as the mutation always did. false applies the factor to one clone only
+    public boolean compoundMutationAmount = true;
+
+    public SimulationConfig copy() {
+        try {
+            SimulationConfig copy = (SimulationConfig) super.clone();
+            copy.mutatedLayers = mutatedLayers == null ? null : mutatedLayers.clone();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package simulator;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+// Swing view of a simulation. It never looks at the world itself: the simulation thread publishes
+// snapshots into a SnapshotBuffer and a timer on the Swing thread draws the newest one into an
+// image at most maxFramesPerSecond times a second. Frames with nothing new are skipped, so the
+// simulation runs the same with or without a window
+public class SimulationView extends JPanel {
+
+    private final SimulationConfig config;
+    private final SnapshotBuffer snapshots;
+    private final BufferedImage image;
+    private final Timer timer;
+
+    public SimulationView(SimulationConfig config, SnapshotBuffer snapshots) {
+        this.config = config;
+        this.snapshots = snapshots;
+        // blobs on the right or bottom edge are drawn past mapSize
+        int size = config.mapSize + config.blobSize + 1;
+        this.image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        this.timer = new Timer(1000 / Math.max(1, config.maxFramesPerSecond), e -> nextFrame());
+    }
+
+    public void start() {
+        timer.start();
+    }
+
+    private void nextFrame() {
+        WorldSnapshot snapshot = snapshots.take();
+        if (snapshot == null) {
+            return;
+        }
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(getBackground());
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            drawLine(g);
+            drawFoods(g, snapshot);
+            drawBlobs(g, snapshot);
+        } finally {
+            g.dispose();
+        }
+        repaint();
+    }
+
+    // drawing the simulation
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        g.drawImage(image, 0, 0, null);
+    }
+
+    private void drawBlobs(Graphics g, WorldSnapshot snapshot) {
+        int blobSize = config.blobSize;
+        // drawing blobs
+        for (int i = 0; i < snapshot.numBlobs; i++) {
+            if (snapshot.blobHasEaten[i]) {
+                g.setColor(Color.BLUE);
+            } else {
+                g.setColor(Color.GREEN);
+            }
+    
+            // Draw the filled rectangle with the blob color
+            g.fillRect(snapshot.blobX[i], snapshot.blobY[i], blobSize, blobSize);
+
+            // Draw the outline of the blob
+            g.setColor(Color.BLACK);
+            g.drawRect(snapshot.blobX[i], snapshot.blobY[i], blobSize, blobSize);
+        }
+    }
+
+    private void drawLine(Graphics g) {
+        int mapSize = config.mapSize;
+        // drawing vertical line in the middle and fill left side with light blue
+        g.setColor(Color.BLACK);
+        g.drawLine(mapSize/4, 0, mapSize/4, mapSize);
+        g.setColor(Color.CYAN);
+        g.fillRect(0, 0, mapSize/4, mapSize);
+    }
+
+    private void drawFoods(Graphics g, WorldSnapshot snapshot) {
+        // drawing foods
+        g.setColor(Color.RED);
+        for (int i = 0; i < snapshot.numFoods; i++) {
+            g.fillRect(snapshot.foodX[i], snapshot.foodY[i], 5, 5);
+        }
+    }
+}
@@ -1,90 +1,29 @@
 package simulator;
 
-import java.awt.Color;
-import java.awt.Graphics;
-import java.io.BufferedWriter;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import javax.swing.JFrame;
-import javax.swing.JPanel;
-import javax.swing.Timer;
-import organisms.Blob;
-import organisms.Food;
-import neuralNetwork.BlobNeuralNetwork;
-import org.nd4j.linalg.api.ndarray.INDArray;
-import org.nd4j.linalg.factory.Nd4j;
 
-public class Simulator extends JPanel {
+// Runs a single world, either in a window or headless, and takes care of everything that happens
+// between generations: checkpointing the best model and writing the statistics
+public class Simulator {
 
-    public List<Food> foods = new ArrayList<>();
-    public List<Blob> blobs = new ArrayList<>();
-    public int simulationStep = 0;
-    public int currentGeneration = 0;
-    public int numOfStartingBlobs = 0;
-    public double survivalRate = 0;
-    public int numOfDeadBlobs = 0;
-    public int numOfAliveBlobs = 0;
-    public int numbOfFoodLeft = 0;
-    public int numOfInputSensors = 25;
+    public final SimulationConfig config = new SimulationConfig();
+    public World world;
+    public boolean finished = false;
 
-    // good start for number of inner neurons is number of input neurons + number of output neurons / 2
-    public int numOfHiddenNeurons = 18;
-    public int numOfOutputNeurons = 11;
+    public static final Path STATISTICS_PATH = Paths.get("generation_statistics.tsv");
 
- 
-    // SETTINGS FOR THE SIMULATION
-
-    // size of the blobs
-    int blobSize = 10;
-
-    // size of the map
-    int mapSize = 800;
-
-    // amount of simulations each generationcvf
-    public int maxSimulationSteps = 50;
-
-    // amouunt of total generations
-    public int maxGenerations = 100000;
-
-    // max amount of blobs at every generation
-    public int maxNumOfBlobs = 30;
-
-    // amount of food for each generation
-    public int foodAmount = 50;
-
-    // initial blob amount
-    public int blobAmount = 10;
-
-    // reproduction of clone amount of original blob
-    public int cloneSpawnAmount = 1;
-
-    // 10 percent chance that each connection will be changed to a different weight
-    public double mutationRate = 0.1;
-
-    // how much the mutation will change the weight by (will be negative or positive)
-    public int mutationChangeAmount = 10;
-
-    // sensing range of the blobs
-    public int sensingRange = 300;
-
-
-    // how random the mutation will be. Min range will be how low it can be multipled by decreasing the mutation amount
-    // Max range will be how high it can be multipled by increasing the mutation amount. For example, if minRange is 0 and
-    // maxRange is 2, the mutation amount will be between 0 and double the mutation amount. Keep both at 1 if you don't 
-    // want to change the mutation amount
-    public double minRange = 0;
-    public double maxRange = 0.75;
+    private CheckpointWriter checkpoints;
+    private StatisticsSink statistics;
 
     private static Simulator instance;
-    private BlobNeuralNetwork blobNetwork;
-    Random random = new Random(System.currentTimeMillis());
 
 
     private Simulator() {
-        initializeSimulation();
     }
 
     public static Simulator getInstance() {
@@ -94,312 +33,157 @@ public class Simulator extends JPanel {
         return instance;
     }
 
-    private void initializeSimulation() {
-
-
-        // createNewFood();
-        clearStatistics();
-        numOfStartingBlobs = blobAmount;
-        numbOfFoodLeft = foodAmount;
-
-        Blob.mapSize = mapSize;
-        Blob.numOfInputSensors = numOfInputSensors;
-        Blob.numOfHiddenNeurons = numOfHiddenNeurons;
-        Blob.numOfOutputNeurons = numOfOutputNeurons;
-        Blob.sensingRange = sensingRange;
-        Blob.blobSize = blobSize;
-        BlobNeuralNetwork.numInputs = numOfInputSensors;
-        BlobNeuralNetwork.numHiddenNeurons = numOfHiddenNeurons;
-        BlobNeuralNetwork.numOutputs = numOfOutputNeurons;
+    // Set up the world, call this after changing the settings and before running. With resume the run
+    // picks up from the last population snapshot, with the same random numbers it would have had
+    public void initializeSimulation(boolean resume) {
+        world = new World(config);
 
-        
-    
-        // Create blobs with associated neural networks
-        for (int i = 0; i < blobAmount; i++) {
-            BlobNeuralNetwork randomNetwork = new BlobNeuralNetwork(numOfInputSensors, numOfHiddenNeurons, numOfOutputNeurons);
-            Blob blob = new Blob(new Point(random.nextInt(mapSize), random.nextInt(mapSize)), randomNetwork);
-    
-            blobs.add(blob);
-    
-            // Set the first neural network as the main blobNetwork
-            if (i == 0) {
-                blobNetwork = randomNetwork;
+        if (resume && Files.exists(PopulationSnapshot.DEFAULT_PATH)) {
+            try {
+                PopulationSnapshot.read(PopulationSnapshot.DEFAULT_PATH, world);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
+            System.out.println("Resumed at generation " + world.currentGeneration);
+        } else {
+            if (resume) {
+                System.out.println("No population snapshot to resume from, starting a new run");
+            }
+            System.out.println("Seed: " + config.seed);
         }
+
+        // a resumed run drops the statistics of the generations after the snapshot, they are run again
+        try {
+            statistics = new StatisticsSink(STATISTICS_PATH, world.currentGeneration, config.numOfOutputNeurons, config.statisticsFlushInterval);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        checkpoints = new CheckpointWriter(config.saveModelZips ? config.checkpointInterval : 0, config.keepLastCheckpoints, config.keepBestCheckpoints, config.checkpointQueueSize);
     }
 
     // updating simulation for each step
     private void updateSimulation() {
-        updateBlobs();
+        world.step();
 
-
-
-        // TESTING add new random blobs to match the max amount for continual simulation
-        // if (blobs.size() < blobAmount){
-
-        //     for (int i = 0; i < blobAmount - blobs.size(); i++){
-        //     BlobNeuralNetwork randomNetwork = new BlobNeuralNetwork(numOfInputSensors, numOfHiddenNeurons, numOfOutputNeurons);
-        //     Blob blob = new Blob(new Point(random.nextInt(mapSize), random.nextInt(mapSize)), randomNetwork);
-        //     blobs.add(blob);
-        //     }
-        // }
-
-
-        simulationStep++;
-        System.out.println("Simulation step: " + simulationStep);
-
-        if (simulationStep >= maxSimulationSteps) {
+        if (world.isGenerationOver()) {
             // At the end of each generation
-            numbOfFoodLeft = foods.size();
+            world.numbOfFoodLeft = world.foods.size;
             
             // TURN THIS ON/OFF DEPENDING ON SUCCESS CONDITION OF SIMULATION
             //createNewFood();
-            if (currentGeneration < maxGenerations - 1) {
-                // Save the trained model for the current generation
-                blobNetwork.saveModel("trained_blob_model_generation_" + currentGeneration + ".zip");
-                System.out.println("Generation step: " + currentGeneration);
-                
+            if (world.currentGeneration < config.maxGenerations - 1) {
                 // Create a new generation of blobs
-                createNewGeneration();
-                
-                // Reset simulation step
-                simulationStep = 0;
-                saveStatistics();
-                currentGeneration++;
+                world.createNewGeneration();
+
+                // Save the best model of this generation, written in the background
+                long checkpointStart = Metrics.start();
+                checkpoints.checkpoint(world.bestNetwork(), world.currentGeneration, world.bestFitness());
+                Metrics.stop(Metrics.Phase.CHECKPOINT, checkpointStart);
+                statistics.record(world);
+                world.finishGeneration();
+
+                if (config.snapshotInterval > 0 && world.currentGeneration % config.snapshotInterval == 0) {
+                    savePopulation();
+                }
+                if (Metrics.ENABLED && config.metricsInterval > 0 && world.currentGeneration % config.metricsInterval == 0) {
+                    Metrics.printSummary(System.out, "generation " + world.currentGeneration);
+                }
             } else {
                 // Save the final model and terminate the simulation
-                saveStatistics();
-                blobNetwork.saveModel("final_trained_blob_model.zip");
-                System.exit(0);
+                statistics.record(world);
+                world.finishGeneration();
+                saveFinalModel();
+                finished = true;
             }
         }
     }
 
-    // updating the blobs while also removing blobs so that the max amount of blobs is not exceeded
-    private void updateBlobs() {
-        // Collect indices to remove
-        List<Integer> indicesToRemove = new ArrayList<>();
-    
-        // Identify blobs to remove
-        for (int i = maxNumOfBlobs; i < blobs.size(); i++) {
-            indicesToRemove.add(random.nextInt(blobs.size()));
-        }
-    
-        // Remove marked blobs
-        List<Blob> blobsToRemove = new ArrayList<>();
-        for (int indexToRemove : indicesToRemove) {
-            blobsToRemove.add(blobs.get(indexToRemove));
-        }
-        blobs.removeAll(blobsToRemove);
-    
-        // Update remaining blobs
-        for (Blob blob : blobs) {
-            blob.update(foods, blobs);
-        }
-    }
-
-    private void createNewGeneration() {
-        // Create a new list for the next generation
-        List<Blob> newBlobs = new ArrayList<>();
-    
-        // Create new blobs for the next generation
-        for (Blob originalBlob : blobs) {
-
-            // USE FOR TESTING AREA SUCCESS CONDITION
-            // if the blob is on the left side of the map
-            int leftSuccess = mapSize/4;
-            if (originalBlob.position.x < leftSuccess){
-
-                 numOfAliveBlobs++;
-                // creating the original blob and putting it back into the next generation
-                Point point = new Point(random.nextInt(mapSize), random.nextInt(mapSize));
-                originalBlob.position = point;
-    
-                // how many original blobs are cloned
-                for (int i = 0; i < 2; i++) {
-                    point = new Point(random.nextInt(mapSize), random.nextInt(mapSize));
-                    BlobNeuralNetwork blobNetwork = originalBlob.neuralNetwork;
-                    Blob clonedBlob = new Blob(point, blobNetwork);
-                    newBlobs.add(clonedBlob);
-                }
-    
-                // if the blob survives, spawn clones with mutations
-                for (int i = 0; i < cloneSpawnAmount; i++) {
-                    Blob newBlob = cloneBlobWithMutation(originalBlob);
-                    newBlobs.add(newBlob);
+    // Run the simulation in a window. Call this on the Swing thread. The simulation runs as fast as it
+    // can on a thread of its own and hands the window a snapshot at most maxFramesPerSecond times a second
+    public void runSimulation() {
+        SnapshotBuffer snapshots = new SnapshotBuffer();
+        SimulationView view = new SimulationView(config, snapshots);
+        JFrame frame = new JFrame("Blob Simulator");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setSize(config.mapSize, config.mapSize);
+        frame.getContentPane().add(view);
+        frame.setVisible(true);
+        view.start();
+
+        long frameNanos = 1_000_000_000L / Math.max(1, config.maxFramesPerSecond);
+        Thread simulation = new Thread(() -> {
+            long nextFrame = System.nanoTime();
+            while (!finished) {
+                updateSimulation();
+
+                // only copy the world when a frame is due and the view took the last one
+                long now = System.nanoTime();
+                if (now >= nextFrame && snapshots.publish(world)) {
+                    nextFrame = now + frameNanos;
                 }
-
-
             }
-
-
-            // USED FOR TESTING FOOD SUCCESS CONDITION
-            // if (originalBlob.getEatenAmount() > 0) {
-            //     numOfAliveBlobs++;
-            //     // creating the original blob and putting it back into the next generation
-            //     Point point = new Point(random.nextInt(mapSize), random.nextInt(mapSize));
-            //     originalBlob.position = point;
-            //     int temp = originalBlob.eatenAmount;
-            //     originalBlob.eatenAmount = 0;
-    
-            //     // if the blob has eaten, spawn clones of the original blob with the amount of food it has eaten
-            //     for (int i = 0; i < temp + 1; i++) {
-            //         point = new Point(random.nextInt(mapSize), random.nextInt(mapSize));
-            //         BlobNeuralNetwork blobNetwork = originalBlob.neuralNetwork;
-            //         Blob clonedBlob = new Blob(point, blobNetwork);
-            //         newBlobs.add(clonedBlob);
-            //     }
-    
-            //     // if the blob survives, spawn clones with mutations
-            //     for (int i = 0; i < cloneSpawnAmount; i++) {
-            //         Blob newBlob = cloneBlobWithMutation(originalBlob);
-            //         newBlobs.add(newBlob);
-            //     }
-            // }
-
-
-        }
-    
-        // Clear existing blobs and add the new ones
-        numOfDeadBlobs = numOfStartingBlobs - numOfAliveBlobs;
-        survivalRate = (double) numOfAliveBlobs / (double) numOfStartingBlobs;
-        blobs.clear();
-        blobs.addAll(newBlobs);
+            System.exit(0);
+        }, "simulation");
+        simulation.start();
     }
 
-    private Blob cloneBlobWithMutation(Blob originalBlob) {
-        // Create a new blob as a clone of the original
-        Point Point = new Point(random.nextInt(mapSize), random.nextInt(mapSize));
-        Blob clonedBlob = new Blob(Point, null);
-        
-        // Clone the neural network
-        BlobNeuralNetwork originalNN = originalBlob.neuralNetwork;
-        BlobNeuralNetwork clonedNN = originalNN.clone(); // Use the clone method of BlobNeuralNetwork
-        
-        // Introduce mutation to the weights (adjust this based on your requirements)
-        applyMutation(clonedNN.getOutputWeights());
-        
-        // Set the cloned neural network to the new blob
-        clonedBlob.neuralNetwork = clonedNN;
-        clonedBlob.eatenAmount = 0;
-        
-        return clonedBlob;
-    }
+    // Run the simulation without a window as fast as the CPU allows, until it finishes or runs out
+    // of steps or wall-clock time (0 means no limit). Prints a progress line every progressInterval generations
+    public void runHeadless(long stepBudget, long timeBudgetMillis, int progressInterval) {
+        long start = System.nanoTime();
+        long deadline = timeBudgetMillis > 0 ? start + timeBudgetMillis * 1_000_000L : Long.MAX_VALUE;
+        long maxSteps = stepBudget > 0 ? stepBudget : Long.MAX_VALUE;
+        long steps = 0;
+        int reportedGeneration = world.currentGeneration;
 
-    private void applyMutation(INDArray weights) {
-        // Add small random values to the weights
+        while (!finished && steps < maxSteps && System.nanoTime() < deadline) {
+            updateSimulation();
+            steps++;
 
-        mutationChangeAmount *= random.nextDouble(minRange, maxRange);
-        weights.addi(Nd4j.rand(weights.shape()).subi(mutationChangeAmount).muli(mutationRate));
-    }
+            if (world.currentGeneration != reportedGeneration && world.currentGeneration % progressInterval == 0) {
+                reportedGeneration = world.currentGeneration;
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("Generation %d | steps %d | %.0f steps/s | blobs %d | food left %d | survival rate %.3f%n",
+                        world.currentGeneration, steps, steps / seconds, world.blobs.size, world.numbOfFoodLeft, world.survivalRate);
+            }
+        }
 
-    //TODO
-    public BlobNeuralNetwork crossOver(BlobNeuralNetwork male, BlobNeuralNetwork female){
-        return null;
+        // Ran out of budget before the last generation, keep what was learned so far
+        if (!finished) {
+            saveFinalModel();
+        }
     }
 
-    // private void createNewFood(){
-
-    //     foods.clear();
-    
-    //     // adding foods (can also change this to be the condition for blob to survive)
-    //     for (int i = 0; i < foodAmount; i++) {
-    //         foods.add(new Food(new Point(random.nextInt(mapSize), random.nextInt(mapSize))));
-    //     }
-
-    // }
-
-    // save the statistics of the simulation
-    private void saveStatistics() {
-        String filename = "generation_statistics.txt";
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename, true))) {
-            writer.write("Generation: " + currentGeneration + "\n");
-            writer.write("Num of Starting Blobs: " + numOfStartingBlobs + "\n");
-            writer.write("Num of Dead Blobs: " + numOfDeadBlobs + "\n");
-            writer.write("Num of Alive Blobs: " + numOfAliveBlobs + "\n");
-            writer.write("Num of Food Left: " + numbOfFoodLeft + "\n");
-            writer.write("Survival Rate: " + survivalRate + "\n");
-            writer.write("\n");
-
-            // Reset statistics for the next generation
-            numOfStartingBlobs = numOfAliveBlobs;
-            numOfDeadBlobs = 0;
-            numOfAliveBlobs = 0;
-
+    // Save the whole world so the run can be picked up from here
+    private void savePopulation() {
+        // a resumed run continues after the last statistics line, so it has to be on disk
+        statistics.flush();
+        long start = Metrics.start();
+        try {
+            PopulationSnapshot.write(world, PopulationSnapshot.DEFAULT_PATH);
         } catch (IOException e) {
             e.printStackTrace();
         }
+        Metrics.stop(Metrics.Phase.CHECKPOINT, start);
     }
 
-    // clear the statistics of the simulation
-    private void clearStatistics() {
-        String filename = "generation_statistics.txt";
-    
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            // The file is opened without the 'true' parameter, so it will be cleared
-    
+    // Save the best model and the population and wait until every checkpoint is on disk
+    private void saveFinalModel() {
+        savePopulation();
+        try {
+            statistics.close();
         } catch (IOException e) {
             e.printStackTrace();
         }
-    }
-
-
-    // drawing the simulation
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        drawLine(g);
-        drawFoods(g);
-        drawBlobs(g);
-    }
-
-    private void drawBlobs(Graphics g) {
-        // drawing blobs
-        for (Blob blob : blobs) {
-            if (blob.getEatenAmount() > 0) {
-                g.setColor(Color.BLUE);
-            } else {
-                g.setColor(Color.GREEN);
-            }
-    
-            // Draw the filled rectangle with the blob color
-            g.fillRect(blob.position.x, blob.position.y, blobSize, blobSize);
-
-            // Draw the outline of the blob
-            g.setColor(Color.BLACK);
-            g.drawRect(blob.position.x, blob.position.y, blobSize, blobSize);
+        if (config.saveModelZips) {
+            checkpoints.save(world.bestNetwork(), "final_trained_blob_model.zip");
         }
-    }
-
-    private void drawLine(Graphics g) {
-        // drawing vertical line in the middle and fill left side with light blue
-        g.setColor(Color.BLACK);
-        g.drawLine(mapSize/4, 0, mapSize/4, mapSize);
-        g.setColor(Color.CYAN);
-        g.fillRect(0, 0, mapSize/4, mapSize);
-    }
-
-    private void drawFoods(Graphics g) {
-        // drawing foods
-        for (Food food : foods) {
-            g.setColor(Color.RED);
-            g.fillRect(food.position.x, food.position.y, 5, 5);
+        checkpoints.close();
+        if (checkpoints.getSkipped() > 0) {
+            System.out.println("Skipped " + checkpoints.getSkipped() + " checkpoints, the writer could not keep up");
         }
-    }
-
-    public void runSimulation() {
-        JFrame frame = new JFrame("Blob Simulator");
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setSize(mapSize, mapSize);
-        frame.getContentPane().add(this);
-        frame.setVisible(true);
-
-        Timer timer = new Timer(10, e -> {
-            updateSimulation();
-            repaint();
-        });
-
-        timer.start();
+        Metrics.printSummary(System.out, "end of run");
+        world.shutdown();
     }
 }
\ No newline at end of file
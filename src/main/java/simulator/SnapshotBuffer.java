@@ -0,0 +1,43 @@
+package simulator;
+
+// Hands world snapshots from the simulation thread to the view without either one waiting for the
+// other. There are two snapshots: the view draws the front one while the simulation fills the back
+// one, and a pending flag says the back one is newer. The simulation only fills the back snapshot
+// when the view has taken the last one, any steps in between are simply not drawn.
+//
+// Works for one writer thread and one reader thread
+public class SnapshotBuffer {
+
+    private WorldSnapshot front = new WorldSnapshot();
+    private WorldSnapshot back = new WorldSnapshot();
+    private boolean pending = false;
+
+    // Copy the world into the back snapshot, unless the view has not taken the last one yet.
+    // Returns whether the world was copied
+    public boolean publish(World world) {
+        synchronized (this) {
+            if (pending) {
+                return false;
+            }
+        }
+        // the view never touches the back snapshot while nothing is pending
+        back.copyFrom(world);
+        synchronized (this) {
+            pending = true;
+        }
+        return true;
+    }
+
+    // The newest published snapshot, or null if nothing was published since the last call.
+    // It stays valid until the next call
+    public synchronized WorldSnapshot take() {
+        if (!pending) {
+            return null;
+        }
+        WorldSnapshot newest = back;
+        back = front;
+        front = newest;
+        pending = false;
+        return front;
+    }
+}
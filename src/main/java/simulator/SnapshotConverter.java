@@ -0,0 +1,56 @@
+package simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+
+import neuralNetwork.BlobNeuralNetwork;
+
+// Turns the single network zip files in models/ into one population snapshot, one blob at a random
+// position per zip. Zips with other layer sizes than the default settings are skipped.
+//
+// Usage: SnapshotConverter [output file] (default models/population_snapshot.bin)
+public class SnapshotConverter {
+    public static void main(String[] args) throws IOException {
+        Path output = args.length > 0 ? Paths.get(args[0]) : PopulationSnapshot.DEFAULT_PATH;
+
+        File[] zips = new File("models").listFiles((dir, name) -> name.endsWith(".zip"));
+        if (zips == null || zips.length == 0) {
+            System.err.println("No models/*.zip files to convert");
+            System.exit(1);
+        }
+        Arrays.sort(zips);
+
+        SimulationConfig config = new SimulationConfig();
+        config.simulationThreads = 1;
+        World world = new World(config);
+        world.blobs.clear();
+
+        for (File zip : zips) {
+            MultiLayerNetwork model = ModelLoader.loadModel(zip.getName());
+            if (model == null) {
+                System.err.println("Skipping " + zip.getName() + ", it could not be loaded");
+                continue;
+            }
+            BlobNeuralNetwork network = world.blobNetwork.clone();
+            network.setModel(model);
+            if (!network.hasSameLayers(world.blobNetwork)) {
+                System.err.println("Skipping " + zip.getName() + ", its layer sizes are " + Arrays.toString(network.getLayerSizes()));
+                continue;
+            }
+            int x = world.random.nextInt(config.mapSize);
+            int y = world.random.nextInt(config.mapSize);
+            world.blobs.add(x, y, world.blobs.addNetwork(network), world.random.splitSeed());
+        }
+        world.blobGrid.rebuild(world.blobs);
+        world.numOfStartingBlobs = world.blobs.size;
+
+        PopulationSnapshot.write(world, output);
+        System.out.println("Wrote " + world.blobs.size + " networks to " + output);
+        world.shutdown();
+    }
+}
@@ -0,0 +1,167 @@
+package simulator;
+
+import java.util.Arrays;
+
+import organisms.Positions;
+
+// Uniform grid over the map that buckets entries of a Positions store by the cell their position
+// falls in, so range and adjacency queries only look at the cells close to the query point.
+// Entries are stored by index and their positions are read from the store, so the grid has to be
+// told whenever an entry is added, removed, moved or renumbered by a swap-remove.
+//
+// Every cell is kept sorted by index, so queries see the entries in an order that only depends on
+// where they are and not on how they got there. A grid rebuilt from a snapshot then gives the same
+// sensor rows as the grid of the run that wrote the snapshot
+public class SpatialGrid {
+
+    private final int cellSize;
+    private final int columns;
+    private final int[][] cells;
+    private final int[] cellCounts;
+    private Positions positions;
+
+    public SpatialGrid(int mapSize, int cellSize, Positions positions) {
+        this.cellSize = cellSize;
+        this.positions = positions;
+        // positions are clamped to [0, mapSize] so the last cell includes mapSize itself
+        this.columns = mapSize / cellSize + 1;
+        this.cells = new int[columns * columns][4];
+        this.cellCounts = new int[columns * columns];
+    }
+
+    public void add(int index) {
+        addToCell(cellIndex(positions.x[index], positions.y[index]), index);
+    }
+
+    public void remove(int index) {
+        removeFromCell(cellIndex(positions.x[index], positions.y[index]), index);
+    }
+
+    // Call after the entry moved from (oldX, oldY) to its current position
+    public void move(int index, int oldX, int oldY) {
+        int oldCell = cellIndex(oldX, oldY);
+        int newCell = cellIndex(positions.x[index], positions.y[index]);
+        if (oldCell != newCell) {
+            removeFromCell(oldCell, index);
+            add(index);
+        }
+    }
+
+    // Call after a swap-remove moved the entry at oldIndex to newIndex
+    public void renumber(int oldIndex, int newIndex) {
+        int cell = cellIndex(positions.x[newIndex], positions.y[newIndex]);
+        removeFromCell(cell, oldIndex);
+        addToCell(cell, newIndex);
+    }
+
+    public void clear() {
+        Arrays.fill(cellCounts, 0);
+    }
+
+    // Empty the grid and add every entry of the store, which the grid uses from now on
+    public void rebuild(Positions positions) {
+        this.positions = positions;
+        clear();
+        for (int i = 0; i < positions.size; i++) {
+            add(i);
+        }
+    }
+
+    // Collect every entry within range (inclusive) of the point into out, out is cleared first
+    public void queryRange(int x, int y, int range, IntList out) {
+        out.clear();
+        int[] xs = positions.x;
+        int[] ys = positions.y;
+        long rangeSquared = (long) range * range;
+        int minColumn = column(x - range);
+        int maxColumn = column(x + range);
+        int minRow = column(y - range);
+        int maxRow = column(y + range);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minColumn; col <= maxColumn; col++) {
+                int cell = row * columns + col;
+                int[] items = cells[cell];
+                for (int i = 0; i < cellCounts[cell]; i++) {
+                    int item = items[i];
+                    if (distanceSquared(x, y, xs[item], ys[item]) <= rangeSquared) {
+                        out.add(item);
+                    }
+                }
+            }
+        }
+    }
+
+    // Check whether any entry other than exclude is strictly closer than range to the point
+    public boolean anyCloserThan(int x, int y, int range, int exclude) {
+        int[] xs = positions.x;
+        int[] ys = positions.y;
+        long rangeSquared = (long) range * range;
+        int minColumn = column(x - range);
+        int maxColumn = column(x + range);
+        int minRow = column(y - range);
+        int maxRow = column(y + range);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minColumn; col <= maxColumn; col++) {
+                int cell = row * columns + col;
+                int[] items = cells[cell];
+                for (int i = 0; i < cellCounts[cell]; i++) {
+                    int item = items[i];
+                    if (item != exclude && distanceSquared(x, y, xs[item], ys[item]) < rangeSquared) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Insert index at its sorted place. New entries usually have the highest index, so the search
+    // starts at the end of the cell
+    private void addToCell(int cell, int index) {
+        int count = cellCounts[cell];
+        if (count == cells[cell].length) {
+            cells[cell] = Arrays.copyOf(cells[cell], count * 2);
+        }
+        int[] items = cells[cell];
+        int i = count;
+        while (i > 0 && items[i - 1] > index) {
+            items[i] = items[i - 1];
+            i--;
+        }
+        items[i] = index;
+        cellCounts[cell] = count + 1;
+    }
+
+    // keeps the rest of the cell sorted
+    private void removeFromCell(int cell, int index) {
+        int[] items = cells[cell];
+        int count = cellCounts[cell];
+        for (int i = 0; i < count; i++) {
+            if (items[i] == index) {
+                System.arraycopy(items, i + 1, items, i, count - i - 1);
+                cellCounts[cell] = count - 1;
+                return;
+            }
+        }
+    }
+
+    private int cellIndex(int x, int y) {
+        return column(y) * columns + column(x);
+    }
+
+    private int column(int coordinate) {
+        int column = coordinate / cellSize;
+        if (column < 0) {
+            return 0;
+        }
+        return column >= columns ? columns - 1 : column;
+    }
+
+    private static long distanceSquared(int x, int y, int otherX, int otherY) {
+        long dx = otherX - x;
+        long dy = otherY - y;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,136 @@
+package simulator;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Writes one tab separated line of statistics per generation to a file that stays open for the
+// whole run. Lines are buffered and flushed every flushInterval generations, on close, and by a
+// shutdown hook if the program is stopped before close is called.
+//
+// The first line holds the column names, so the file loads straight into pandas, R or a spreadsheet
+public class StatisticsSink implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final BufferedWriter writer;
+    private final int flushInterval;
+    private final Thread shutdownHook;
+    private final StringBuilder line = new StringBuilder();
+    private int unflushed = 0;
+    private boolean closed = false;
+
+    // firstGeneration is the generation the run starts at. A run that starts at 0 replaces the file,
+    // a resumed run keeps the lines of the generations before firstGeneration and appends after them
+    public StatisticsSink(Path path, int firstGeneration, int numActions, int flushInterval) throws IOException {
+        this.flushInterval = Math.max(1, flushInterval);
+
+        List<String> kept = new ArrayList<>();
+        if (firstGeneration > 0 && Files.exists(path)) {
+            for (String existing : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                int tab = existing.indexOf('\t');
+                if (kept.isEmpty() || (tab > 0 && Integer.parseInt(existing.substring(0, tab)) < firstGeneration)) {
+                    kept.add(existing);
+                }
+            }
+        }
+
+        writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (kept.isEmpty()) {
+            writer.write(header(numActions));
+            writer.newLine();
+        } else {
+            for (String existing : kept) {
+                writer.write(existing);
+                writer.newLine();
+            }
+        }
+
+        shutdownHook = new Thread(this::closeQuietly, "statistics-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    private static String header(int numActions) {
+        StringBuilder header = new StringBuilder("generation\tstarting_blobs\talive_blobs\tdead_blobs\tfood_left\tsurvival_rate"
+                + "\tfitness_min\tfitness_median\tfitness_mean\tfitness_max\tstep_ms\tinference_ms");
+        for (int action = 0; action < numActions; action++) {
+            header.append("\taction_").append(action);
+        }
+        return header.toString();
+    }
+
+    // Add the statistics of the generation that just ended, call this before world.finishGeneration()
+    public synchronized void record(World world) {
+        if (closed) {
+            return;
+        }
+        line.setLength(0);
+        line.append(world.currentGeneration)
+                .append('\t').append(world.numOfStartingBlobs)
+                .append('\t').append(world.numOfAliveBlobs)
+                .append('\t').append(world.numOfDeadBlobs)
+                .append('\t').append(world.numbOfFoodLeft)
+                .append('\t').append(world.survivalRate)
+                .append('\t').append(world.fitnessMin)
+                .append('\t').append(world.fitnessMedian)
+                .append('\t').append(world.fitnessMean)
+                .append('\t').append(world.fitnessMax)
+                .append('\t').append(world.stepNanos / 1e6)
+                .append('\t').append(world.inferenceNanos / 1e6);
+        for (long count : world.actionCounts) {
+            line.append('\t').append(count);
+        }
+
+        try {
+            writer.append(line);
+            writer.newLine();
+            if (++unflushed >= flushInterval) {
+                writer.flush();
+                unflushed = 0;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public synchronized void flush() {
+        if (closed) {
+            return;
+        }
+        try {
+            writer.flush();
+            unflushed = 0;
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        writer.close();
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down, the hook is running or about to run
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.InferenceEvent;
+import neuralNetwork.PopulationInference;
+import neuralNetwork.PopulationTensor;
+import neuralNetwork.QuantizedNetwork;
+import organisms.Blob;
+import organisms.BlobPopulation;
+
+// Runs one simulation step in which every blob senses, decides and acts exactly once.
+// The step is split into three phases that always run in this order:
+// 1. Sense: every blob writes its row of sensors from the positions at the start of the step
+// 2. Decide: the actions of the whole population are chosen in one batched inference
+// 3. Act: blobs move and eat one after another in index order, so blobs with a lower index
+//    get to move (and eat) first when they compete for the same spot
+//
+// Sensing and deciding only read the world, so with more than one thread they run in parallel
+// on a fork-join pool. Acting changes the world and always runs on the calling thread, which
+// keeps the outcome of a step the same no matter how many threads are used
+public class StepScheduler {
+
+    private final ForkJoinPool pool;
+
+    // one row of sensors per blob and the chosen actions, reused every step and grown when the population grows
+    private float[] sensors = new float[0];
+    private int[] actions = new int[0];
+
+    // the stacked networks of the TENSOR backend and the network table they were packed from
+    private PopulationTensor tensor;
+    private BlobPopulation packedPopulation;
+    private int packedVersion;
+
+    // int8 copies of the network table for the QUANTIZED backend, reused when the table changes
+    private QuantizedNetwork[] quantized = new QuantizedNetwork[0];
+    private BlobPopulation quantizedPopulation;
+    private int quantizedVersion;
+
+    public StepScheduler(int threads) {
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    public void step(World world) {
+        BlobPopulation blobs = world.blobs;
+        int numBlobs = blobs.size;
+        if (numBlobs == 0) {
+            return;
+        }
+
+        int numInputs = world.config.numOfInputSensors;
+        if (sensors.length < numBlobs * numInputs) {
+            sensors = new float[numBlobs * numInputs];
+            actions = new int[numBlobs];
+        }
+        float[] rows = sensors;
+        int[] chosen = actions;
+
+        // Sense
+        long senseStart = Metrics.start();
+        forEachBlob(numBlobs, i -> Blob.generateInputVector(world, i, rows, i * numInputs));
+        Metrics.stop(Metrics.Phase.SENSING, senseStart);
+
+        // Decide
+        long decideStart = System.nanoTime();
+        InferenceEvent inferenceEvent = new InferenceEvent();
+        inferenceEvent.begin();
+        if (world.config.backend == BlobNeuralNetwork.Backend.JAVA) {
+            forEachBlob(numBlobs, i -> chosen[i] = Blob.chooseAction(world, i, rows, i * numInputs));
+        } else if (world.config.backend == BlobNeuralNetwork.Backend.TENSOR) {
+            PopulationTensor packed = packTensor(world);
+            forEachRange(numBlobs, (from, to) -> packed.predictActions(rows, blobs.networkIndex, from, to, chosen));
+        } else if (world.config.backend == BlobNeuralNetwork.Backend.QUANTIZED) {
+            QuantizedNetwork[] networks = quantizeNetworks(world);
+            forEachBlob(numBlobs, i -> chosen[i] = networks[blobs.networkIndex[i]].predictAction(rows, i * numInputs));
+        } else {
+            // ND4J already spreads a batched forward pass over its own threads
+            List<BlobNeuralNetwork> networks = new ArrayList<>(numBlobs);
+            for (int i = 0; i < numBlobs; i++) {
+                networks.add(blobs.networkOf(i));
+            }
+            int[] predicted = PopulationInference.predictActions(rows, numBlobs, numInputs, networks);
+            System.arraycopy(predicted, 0, chosen, 0, numBlobs);
+        }
+        world.inferenceNanos += System.nanoTime() - decideStart;
+        inferenceEvent.end();
+        if (inferenceEvent.shouldCommit()) {
+            inferenceEvent.backend = world.config.backend.name();
+            inferenceEvent.rows = numBlobs;
+            inferenceEvent.commit();
+        }
+        Metrics.stop(Metrics.Phase.INFERENCE, decideStart);
+        Metrics.count(Metrics.Counter.INFERENCES, numBlobs);
+
+        // Act
+        for (int i = 0; i < numBlobs; i++) {
+            long moveStart = Metrics.start();
+            Blob.updateBlobPosition(world, i, actions[i]);
+            long eatStart = Metrics.stop(Metrics.Phase.MOVEMENT, moveStart);
+            Blob.checkForFoodEating(world, i);
+            Metrics.stop(Metrics.Phase.EATING, eatStart);
+            world.actionCounts[actions[i]]++;
+        }
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Stack the networks of the population again when the network table changed since the last step
+    private PopulationTensor packTensor(World world) {
+        BlobPopulation blobs = world.blobs;
+        if (tensor == null) {
+            tensor = new PopulationTensor(world.blobNetwork.getLayerSizes());
+        }
+        if (packedPopulation != blobs || packedVersion != blobs.networkVersion) {
+            tensor.pack(blobs.networks, blobs.numNetworks);
+            packedPopulation = blobs;
+            packedVersion = blobs.networkVersion;
+        }
+        return tensor;
+    }
+
+    // Round the networks of the population again when the network table changed since the last step
+    private QuantizedNetwork[] quantizeNetworks(World world) {
+        BlobPopulation blobs = world.blobs;
+        if (quantizedPopulation != blobs || quantizedVersion != blobs.networkVersion) {
+            if (quantized.length < blobs.numNetworks) {
+                quantized = Arrays.copyOf(quantized, blobs.networks.length);
+            }
+            for (int i = 0; i < blobs.numNetworks; i++) {
+                if (quantized[i] == null) {
+                    quantized[i] = new QuantizedNetwork(world.blobNetwork.getLayerSizes());
+                }
+                quantized[i].quantize(blobs.networks[i].getParams());
+            }
+            quantizedPopulation = blobs;
+            quantizedVersion = blobs.networkVersion;
+        }
+        return quantized;
+    }
+
+    // Split the blobs into one range per thread
+    private void forEachRange(int numBlobs, RangeAction action) {
+        int ranges = pool == null ? 1 : Math.min(numBlobs, pool.getParallelism());
+        if (ranges < 2) {
+            action.run(0, numBlobs);
+        } else {
+            pool.submit(() -> IntStream.range(0, ranges).parallel()
+                    .forEach(r -> action.run(r * numBlobs / ranges, (r + 1) * numBlobs / ranges))).join();
+        }
+    }
+
+    private interface RangeAction {
+        void run(int from, int to);
+    }
+
+    private void forEachBlob(int numBlobs, IntConsumer action) {
+        if (pool == null || numBlobs < 2) {
+            for (int i = 0; i < numBlobs; i++) {
+                action.accept(i);
+            }
+        } else {
+            pool.submit(() -> IntStream.range(0, numBlobs).parallel().forEach(action)).join();
+        }
+    }
+}
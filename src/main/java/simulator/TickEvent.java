@@ -0,0 +1,30 @@
+package simulator;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// JFR event for one simulation step of a world. Only recorded when a flight recording with this
+// event enabled is running, otherwise it costs next to nothing
+@Name("blob.Tick")
+@Label("Simulation Tick")
+@Category("Blob Simulator")
+@Description("One simulation step: every blob senses, decides and acts once")
+@StackTrace(false)
+public class TickEvent extends Event {
+
+    @Label("Generation")
+    public int generation;
+
+    @Label("Step")
+    public int step;
+
+    @Label("Population")
+    public int population;
+
+    @Label("Food Left")
+    public int foodLeft;
+}
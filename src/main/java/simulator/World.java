@@ -0,0 +1,441 @@
+package simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import organisms.BlobPopulation;
+import organisms.Positions;
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.CrossoverEngine;
+import neuralNetwork.MutationEngine;
+import neuralNetwork.NetworkPool;
+
+// One simulated world with its own food, blobs, random numbers and settings.
+// Nothing in a world is shared with other worlds, so several of them can run on different threads
+public class World {
+
+    public final SimulationConfig config;
+    public final Positions foods;
+    // swapped with the population that is being filled at the end of every generation
+    public BlobPopulation blobs;
+    public final SpatialGrid foodGrid;
+    public final SpatialGrid blobGrid;
+    public final FastRandom random;
+
+    public int simulationStep = 0;
+    public int currentGeneration = 0;
+    public int numOfStartingBlobs = 0;
+    public double survivalRate = 0;
+    public int numOfDeadBlobs = 0;
+    public int numOfAliveBlobs = 0;
+    public int numbOfFoodLeft = 0;
+
+    // the mutation amount of the next clone, which keeps shrinking when config.compoundMutationAmount is set
+    public int mutationAmount;
+
+    // fitness of all blobs at the end of the last generation
+    public double fitnessMin = 0;
+    public double fitnessMedian = 0;
+    public double fitnessMean = 0;
+    public double fitnessMax = 0;
+
+    // time spent in steps and in the decide phase of the steps, and how often every action was taken,
+    // summed over the current generation
+    public long stepNanos = 0;
+    public long inferenceNanos = 0;
+    public final long[] actionCounts;
+
+    // the networks of the blobs that survived the last generation, best first
+    public final List<BlobNeuralNetwork> survivors = new ArrayList<>();
+
+    // the first neural network, saved as the model of every generation
+    public BlobNeuralNetwork blobNetwork;
+
+    private final StepScheduler scheduler;
+    private final NetworkPool networkPool = new NetworkPool();
+    private final MutationEngine mutationEngine;
+    private final CrossoverEngine crossoverEngine;
+    private final Selection selection;
+
+    // the population of the next generation, filled at the end of a generation. The two populations
+    // take turns so their arrays are reused instead of allocating new blobs every generation
+    private BlobPopulation nextBlobs;
+
+    // the survivors in the order they were found and their fitness, reused every generation
+    private final IntList survivorIndices = new IntList();
+    private double[] parentFitness = new double[0];
+    private long[] survivorOrder = new long[0];
+    private double bestSurvivorFitness = 0;
+    private double[] populationFitness = new double[0];
+    private final Set<BlobNeuralNetwork> usedNetworks = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public World(SimulationConfig config) {
+        this.config = config;
+        this.random = new FastRandom(config.seed);
+        this.actionCounts = new long[config.numOfOutputNeurons];
+        this.scheduler = new StepScheduler(config.simulationThreads);
+        this.foods = new Positions(config.foodAmount);
+        this.blobs = new BlobPopulation(config.maxNumOfBlobs);
+        this.nextBlobs = new BlobPopulation(config.maxNumOfBlobs);
+        this.foodGrid = new SpatialGrid(config.mapSize, config.gridCellSize, foods);
+        this.blobGrid = new SpatialGrid(config.mapSize, config.gridCellSize, blobs);
+
+        // createNewFood();
+        numOfStartingBlobs = config.blobAmount;
+        numbOfFoodLeft = config.foodAmount;
+
+        // Create blobs with associated neural networks
+        for (int i = 0; i < config.blobAmount; i++) {
+            BlobNeuralNetwork randomNetwork = new BlobNeuralNetwork(config.numOfInputSensors, config.numOfHiddenNeurons, config.numOfOutputNeurons, random);
+            blobGrid.add(spawn(blobs, blobs.addNetwork(randomNetwork)));
+
+            // Set the first neural network as the main blobNetwork
+            if (i == 0) {
+                blobNetwork = randomNetwork;
+            }
+        }
+
+        mutationAmount = (int) config.mutationChangeAmount;
+        mutationEngine = new MutationEngine(blobNetwork.getLayerSizes(), config.mutationRate, config.mutationDistribution);
+        if (config.mutatedLayers != null) {
+            mutationEngine.setMutatedLayers(config.mutatedLayers);
+        }
+        crossoverEngine = new CrossoverEngine(blobNetwork.getLayerSizes(), config.crossoverMode, config.crossoverPoints);
+        selection = new Selection(config.selectionMethod, config.tournamentSize);
+    }
+
+    // updating the world for one simulation step
+    public void step() {
+        TickEvent event = new TickEvent();
+        event.begin();
+        long start = System.nanoTime();
+        updateBlobs();
+        stepNanos += System.nanoTime() - start;
+        event.end();
+        if (event.shouldCommit()) {
+            event.generation = currentGeneration;
+            event.step = simulationStep;
+            event.population = blobs.size;
+            event.foodLeft = foods.size;
+            event.commit();
+        }
+
+
+
+        // TESTING add new random blobs to match the max amount for continual simulation
+        // if (blobs.size < config.blobAmount){
+
+        //     for (int i = 0; i < config.blobAmount - blobs.size; i++){
+        //     BlobNeuralNetwork randomNetwork = new BlobNeuralNetwork(config.numOfInputSensors, config.numOfHiddenNeurons, config.numOfOutputNeurons);
+        //     blobGrid.add(spawn(blobs, blobs.addNetwork(randomNetwork)));
+        //     }
+        // }
+
+
+        simulationStep++;
+    }
+
+    public boolean isGenerationOver() {
+        return simulationStep >= config.maxSimulationSteps;
+    }
+
+    // Run the remaining steps of the current generation and move on to the next one
+    public void runGeneration() {
+        while (!isGenerationOver()) {
+            step();
+        }
+        numbOfFoodLeft = foods.size;
+        createNewGeneration();
+        finishGeneration();
+    }
+
+    // Reset statistics for the next generation
+    public void finishGeneration() {
+        numOfStartingBlobs = blobs.size;
+        numOfDeadBlobs = 0;
+        numOfAliveBlobs = 0;
+        stepNanos = 0;
+        inferenceNanos = 0;
+        Arrays.fill(actionCounts, 0);
+        currentGeneration++;
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    // updating the blobs while also removing blobs so that the max amount of blobs is not exceeded
+    private void updateBlobs() {
+        // Remove random blobs until the population fits
+        while (blobs.size > config.maxNumOfBlobs) {
+            removeBlob(random.nextInt(blobs.size));
+        }
+
+        // Update remaining blobs, each blob senses, decides and moves once per step
+        scheduler.step(this);
+    }
+
+    // USE FOR TESTING AREA SUCCESS CONDITION
+    // if the blob is on the left side of the map
+    public boolean isSurvivor(int blob) {
+        int leftSuccess = config.mapSize/4;
+        return blobs.x[blob] < leftSuccess;
+
+        // USED FOR TESTING FOOD SUCCESS CONDITION
+        // return blobs.eaten[blob] > 0;
+    }
+
+    // How well a blob did this generation, used to rank survivors. Eaten food counts the most,
+    // after that the closer the blob is to the left side of the map the better
+    public double fitness(int blob) {
+        return blobs.eaten[blob] + 1.0 - (double) blobs.x[blob] / config.mapSize;
+    }
+
+    // Remove a blob, the last blob takes its index
+    private void removeBlob(int blob) {
+        blobGrid.remove(blob);
+        int last = blobs.size - 1;
+        blobs.swapRemove(blob);
+        if (blob != last) {
+            blobGrid.renumber(last, blob);
+        }
+    }
+
+    // Remove a food, the last food takes its index
+    public void removeFood(int food) {
+        foodGrid.remove(food);
+        int last = foods.size - 1;
+        foods.swapRemove(food);
+        if (food != last) {
+            foodGrid.renumber(last, food);
+        }
+    }
+
+    public void createNewGeneration() {
+        long start = Metrics.start();
+        GenerationEvent event = new GenerationEvent();
+        event.begin();
+        int population = blobs.size;
+        // Fill the other population with the next generation
+        nextBlobs.clear();
+        survivors.clear();
+        survivorIndices.clear();
+
+        // Find the survivors first so every survivor can be picked as the second parent
+        for (int blob = 0; blob < population; blob++) {
+            if (isSurvivor(blob)) {
+                numOfAliveBlobs++;
+                survivorIndices.add(blob);
+            }
+        }
+        int numSurvivors = survivorIndices.size();
+        if (parentFitness.length < numSurvivors) {
+            parentFitness = new double[numSurvivors];
+        }
+        for (int i = 0; i < numSurvivors; i++) {
+            parentFitness[i] = fitness(survivorIndices.get(i));
+        }
+
+        // Create new blobs for the next generation
+        for (int s = 0; s < numSurvivors; s++) {
+            int originalBlob = survivorIndices.get(s);
+            BlobNeuralNetwork parentNetwork = blobs.networkOf(originalBlob);
+
+            // how many original blobs are cloned, the clones share the parent's network
+            int sharedNetwork = nextBlobs.addNetwork(parentNetwork);
+            for (int i = 0; i < 2; i++) {
+                spawn(nextBlobs, sharedNetwork);
+            }
+
+            // if the blob survives, spawn clones with mutations
+            for (int i = 0; i < config.cloneSpawnAmount; i++) {
+                BlobNeuralNetwork childNetwork;
+                if (numSurvivors > 1 && random.nextDouble() < config.crossoverRate) {
+                    // the mate is another survivor, a child of the parent with itself would just be a copy
+                    int mate = survivorIndices.get(selection.select(parentFitness, numSurvivors, s, random));
+                    childNetwork = crossOver(parentNetwork, blobs.networkOf(mate));
+                    applyMutation(childNetwork);
+                } else {
+                    childNetwork = mutatedCopy(parentNetwork);
+                }
+                spawn(nextBlobs, nextBlobs.addNetwork(childNetwork));
+            }
+
+            // USED FOR TESTING FOOD SUCCESS CONDITION
+            // if (blobs.eaten[originalBlob] > 0) {
+            //     // if the blob has eaten, spawn clones of the original blob with the amount of food it has eaten
+            //     for (int i = 0; i < blobs.eaten[originalBlob] + 1; i++) {
+            //         spawn(nextBlobs, sharedNetwork);
+            //     }
+            // }
+
+
+        }
+        sortSurvivors(numSurvivors);
+
+        updateFitnessStatistics();
+
+        // Clear existing blobs and add the new ones. Blobs removed to stay under maxNumOfBlobs are
+        // already gone, so everything that took part in the generation is either alive or dead
+        numOfStartingBlobs = blobs.size;
+        numOfDeadBlobs = numOfStartingBlobs - numOfAliveBlobs;
+        survivalRate = numOfStartingBlobs == 0 ? 0 : (double) numOfAliveBlobs / numOfStartingBlobs;
+        releaseUnusedNetworks();
+        BlobPopulation finished = blobs;
+        blobs = nextBlobs;
+        nextBlobs = finished;
+        nextBlobs.clear();
+        blobGrid.rebuild(blobs);
+        simulationStep = 0;
+        Metrics.stop(Metrics.Phase.TURNOVER, start);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.generation = currentGeneration;
+            event.population = population;
+            event.survivors = numOfAliveBlobs;
+            event.nextPopulation = blobs.size;
+            event.foodLeft = foods.size;
+            event.bestFitness = bestFitness();
+            event.commit();
+        }
+    }
+
+    // The network of the best survivor of the last generation, or the first network if there is none
+    public BlobNeuralNetwork bestNetwork() {
+        return survivors.isEmpty() ? blobNetwork : survivors.get(0);
+    }
+
+    public double bestFitness() {
+        return survivors.isEmpty() ? 0 : bestSurvivorFitness;
+    }
+
+    // Fill survivors with the networks of the survivors, best first, without boxing. Every key holds
+    // the fitness as a float in the high half, flipped so ascending order is best first, and the
+    // position in survivorIndices in the low half
+    private void sortSurvivors(int numSurvivors) {
+        if (survivorOrder.length < numSurvivors) {
+            survivorOrder = new long[numSurvivors];
+        }
+        for (int i = 0; i < numSurvivors; i++) {
+            int bits = Float.floatToIntBits((float) parentFitness[i]);
+            int sortable = bits ^ ((bits >> 31) & 0x7fffffff);
+            survivorOrder[i] = ((long) ~sortable << 32) | i;
+        }
+        Arrays.sort(survivorOrder, 0, numSurvivors);
+
+        for (int i = 0; i < numSurvivors; i++) {
+            survivors.add(blobs.networkOf(survivorIndices.get((int) survivorOrder[i])));
+        }
+        bestSurvivorFitness = numSurvivors == 0 ? 0 : parentFitness[(int) survivorOrder[0]];
+    }
+
+    private void updateFitnessStatistics() {
+        int count = blobs.size;
+        if (count == 0) {
+            fitnessMin = fitnessMedian = fitnessMean = fitnessMax = 0;
+            return;
+        }
+        if (populationFitness.length < count) {
+            populationFitness = new double[count];
+        }
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            populationFitness[i] = fitness(i);
+            sum += populationFitness[i];
+        }
+        Arrays.sort(populationFitness, 0, count);
+        fitnessMin = populationFitness[0];
+        fitnessMax = populationFitness[count - 1];
+        fitnessMean = sum / count;
+        fitnessMedian = count % 2 == 1 ? populationFitness[count / 2]
+                : (populationFitness[count / 2 - 1] + populationFitness[count / 2]) / 2;
+    }
+
+    // Give copies of networks from another world to random blobs of this world
+    public void acceptMigrants(List<BlobNeuralNetwork> migrants) {
+        for (BlobNeuralNetwork migrant : migrants) {
+            if (blobs.size == 0) {
+                blobGrid.add(spawn(blobs, blobs.addNetwork(networkPool.copyOf(migrant))));
+            } else {
+                blobs.networkIndex[random.nextInt(blobs.size)] = blobs.addNetwork(networkPool.copyOf(migrant));
+            }
+        }
+    }
+
+    // Hand the networks of the dead blobs back to the pool so the next mutated clones can reuse them.
+    // Clones share their parent's network, so a network is only free once no new blob uses it
+    private void releaseUnusedNetworks() {
+        usedNetworks.clear();
+        for (int i = 0; i < nextBlobs.numNetworks; i++) {
+            usedNetworks.add(nextBlobs.networks[i]);
+        }
+        // the main network is saved every generation
+        usedNetworks.add(blobNetwork);
+
+        for (int i = 0; i < blobs.numNetworks; i++) {
+            if (usedNetworks.add(blobs.networks[i])) {
+                networkPool.release(blobs.networks[i]);
+            }
+        }
+    }
+
+    // Hand a network back to the pool, nothing may use it afterwards
+    public void releaseNetwork(BlobNeuralNetwork network) {
+        networkPool.release(network);
+    }
+
+    // A mutated copy of the network for a clone
+    public BlobNeuralNetwork mutatedCopy(BlobNeuralNetwork originalNN) {
+        BlobNeuralNetwork clonedNN = networkPool.copyOf(originalNN); // reuses a dead blob's network when there is one
+
+        // Introduce mutation to the weights (adjust this based on your requirements)
+        applyMutation(clonedNN);
+        return clonedNN;
+    }
+
+    private void applyMutation(BlobNeuralNetwork network) {
+        // Add small random values to the weights, in place
+        double factor = config.maxRange > config.minRange ? random.nextDouble(config.minRange, config.maxRange) : config.minRange;
+        double strength;
+        if (config.compoundMutationAmount) {
+            mutationAmount *= factor;
+            strength = mutationAmount;
+        } else {
+            strength = config.mutationChangeAmount * factor;
+        }
+        mutationEngine.mutate(network.getParams(), 0, strength, random);
+        network.paramsChanged();
+    }
+
+    // A new network mixing the parameters of both parents. The child is written straight into the
+    // parameters of a pooled network, so no new network is built when a dead blob's one is free
+    public BlobNeuralNetwork crossOver(BlobNeuralNetwork male, BlobNeuralNetwork female){
+        BlobNeuralNetwork child = networkPool.take(male);
+        crossoverEngine.cross(male.getParams(), 0, female.getParams(), 0, child.getParams(), 0, random);
+        child.paramsChanged();
+        return child;
+    }
+
+    // private void createNewFood(){
+
+    //     foods.clear();
+
+    //     // adding foods (can also change this to be the condition for blob to survive)
+    //     for (int i = 0; i < config.foodAmount; i++) {
+    //         foods.add(random.nextInt(config.mapSize), random.nextInt(config.mapSize));
+    //     }
+    //     foodGrid.rebuild(foods);
+
+    // }
+
+    // Add a blob at a random position with its own random numbers, returns its index
+    private int spawn(BlobPopulation population, int network) {
+        int x = random.nextInt(config.mapSize);
+        int y = random.nextInt(config.mapSize);
+        return population.add(x, y, network, random.splitSeed());
+    }
+}
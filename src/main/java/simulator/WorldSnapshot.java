@@ -0,0 +1,49 @@
+package simulator;
+
+import organisms.BlobPopulation;
+import organisms.Positions;
+
+// What the window needs to draw one frame: where the blobs and food are and which blobs have eaten.
+// Filled from the world by the simulation thread and only read by the view once it is published
+// through a SnapshotBuffer. The arrays are reused, so they can be longer than the counts
+public class WorldSnapshot {
+
+    public int generation;
+    public int step;
+
+    public int numBlobs;
+    public int[] blobX = new int[0];
+    public int[] blobY = new int[0];
+    public boolean[] blobHasEaten = new boolean[0];
+
+    public int numFoods;
+    public int[] foodX = new int[0];
+    public int[] foodY = new int[0];
+
+    public void copyFrom(World world) {
+        generation = world.currentGeneration;
+        step = world.simulationStep;
+
+        BlobPopulation blobs = world.blobs;
+        numBlobs = blobs.size;
+        if (blobX.length < numBlobs) {
+            blobX = new int[blobs.x.length];
+            blobY = new int[blobs.x.length];
+            blobHasEaten = new boolean[blobs.x.length];
+        }
+        System.arraycopy(blobs.x, 0, blobX, 0, numBlobs);
+        System.arraycopy(blobs.y, 0, blobY, 0, numBlobs);
+        for (int i = 0; i < numBlobs; i++) {
+            blobHasEaten[i] = blobs.eaten[i] > 0;
+        }
+
+        Positions foods = world.foods;
+        numFoods = foods.size;
+        if (foodX.length < numFoods) {
+            foodX = new int[foods.x.length];
+            foodY = new int[foods.x.length];
+        }
+        System.arraycopy(foods.x, 0, foodX, 0, numFoods);
+        System.arraycopy(foods.y, 0, foodY, 0, numFoods);
+    }
+}
@@ -0,0 +1,93 @@
+package neuralNetwork;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.deeplearning4j.nn.multilayer.MultiLayerNetwork;
+import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+
+// JavaForwardPass has to compute what DL4J computes: the parameter layout, the layers and the softmax.
+// Every other backend and the Java weight initialization build on it
+public class ForwardPassTest {
+
+    private static final int[] LAYER_SIZES = {25, 18, 18, 18, 11};
+    private static final float TOLERANCE = 1e-5f;
+    private static final int INPUTS = 200;
+
+    // DL4J initializes the model, the flat parameters are read into the Java forward pass
+    @Test
+    public void dl4jParamsGiveTheSameOutputs() {
+        for (int seed = 1; seed <= 10; seed++) {
+            MultiLayerNetwork model = new MultiLayerNetwork(Dl4jBridge.configuration(LAYER_SIZES, seed, 0.01));
+            model.init();
+            JavaForwardPass forwardPass = new JavaForwardPass(Dl4jBridge.layerSizes(model));
+            Dl4jBridge.readParams(model, forwardPass.getParams());
+            assertSameOutputs(model, forwardPass, new Random(seed));
+        }
+    }
+
+    // The weights are initialized in Java and written into the DL4J model
+    @Test
+    public void javaParamsGiveTheSameOutputs() {
+        for (int seed = 1; seed <= 10; seed++) {
+            BlobNeuralNetwork network = new BlobNeuralNetwork(25, 18, 11, new Random(seed));
+            JavaForwardPass forwardPass = new JavaForwardPass(network.getLayerSizes());
+            System.arraycopy(network.getParams(), 0, forwardPass.getParams(), 0, forwardPass.getParams().length);
+            assertSameOutputs(network.getModel(), forwardPass, new Random(seed));
+        }
+    }
+
+    // The Java initialization draws the weights of every layer with the spread of DL4J's XAVIER
+    @Test
+    public void javaInitializationHasTheXavierSpread() {
+        Random random = new Random(3);
+        int numNetworks = 50;
+        double[] squares = new double[LAYER_SIZES.length - 1];
+        for (int n = 0; n < numNetworks; n++) {
+            JavaForwardPass forwardPass = new JavaForwardPass(LAYER_SIZES);
+            forwardPass.initXavier(random);
+            float[] params = forwardPass.getParams();
+            int offset = 0;
+            for (int layer = 0; layer < squares.length; layer++) {
+                int numWeights = LAYER_SIZES[layer] * LAYER_SIZES[layer + 1];
+                for (int i = 0; i < numWeights; i++) {
+                    squares[layer] += params[offset + i] * params[offset + i];
+                }
+                for (int j = 0; j < LAYER_SIZES[layer + 1]; j++) {
+                    assertEquals(0, params[offset + numWeights + j], 0);
+                }
+                offset += numWeights + LAYER_SIZES[layer + 1];
+            }
+        }
+        for (int layer = 0; layer < squares.length; layer++) {
+            double expected = Math.sqrt(2.0 / (LAYER_SIZES[layer] + LAYER_SIZES[layer + 1]));
+            double deviation = Math.sqrt(squares[layer] / (numNetworks * LAYER_SIZES[layer] * LAYER_SIZES[layer + 1]));
+            assertEquals("layer " + layer, expected, deviation, expected * 0.05);
+        }
+    }
+
+    private static void assertSameOutputs(MultiLayerNetwork model, JavaForwardPass forwardPass, Random random) {
+        int inputSize = LAYER_SIZES[0];
+        int outputSize = LAYER_SIZES[LAYER_SIZES.length - 1];
+        float[] inputs = new float[INPUTS * inputSize];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = random.nextFloat() * 2 - 1;
+        }
+        INDArray expected = model.output(Nd4j.create(inputs, new long[]{INPUTS, inputSize}, 'c'));
+        int[] expectedActions = Nd4j.argMax(expected, 1).toIntVector();
+
+        float[] row = new float[inputSize];
+        float[] output = new float[outputSize];
+        for (int r = 0; r < INPUTS; r++) {
+            System.arraycopy(inputs, r * inputSize, row, 0, inputSize);
+            forwardPass.output(row, output);
+            for (int j = 0; j < outputSize; j++) {
+                assertEquals("row " + r + " output " + j, expected.getFloat(r, j), output[j], TOLERANCE);
+            }
+            assertEquals("action of row " + r, expectedActions[r], forwardPass.predictAction(inputs, r * inputSize));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package neuralNetwork;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MutationEngineTest {
+
+    private static final int[] LAYER_SIZES = {25, 18, 18, 18, 11};
+
+    @Test
+    public void shiftedUniformChangesEveryOutputWeightOnly() {
+        MutationEngine engine = new MutationEngine(LAYER_SIZES, 0.1, MutationEngine.Distribution.SHIFTED_UNIFORM);
+        engine.setMutatedLayers(3);
+        float[] params = new float[JavaForwardPass.numParams(LAYER_SIZES)];
+        engine.mutate(params, 0, 2, new Random(1));
+
+        int[] offsets = JavaForwardPass.layerOffsets(LAYER_SIZES);
+        int weightsEnd = offsets[3] + 18 * 11;
+        for (int i = 0; i < params.length; i++) {
+            if (i >= offsets[3] && i < weightsEnd) {
+                // 0.1 * (random in [0, 1) - 2)
+                assertTrue("weight " + i + " is " + params[i], params[i] >= -0.2f && params[i] < -0.1f);
+            } else {
+                assertEquals("parameter " + i + " changed", 0f, params[i], 0f);
+            }
+        }
+    }
+
+    @Test
+    public void gaussianChangesAboutRateOfTheParameters() {
+        MutationEngine engine = new MutationEngine(LAYER_SIZES, 0.1, MutationEngine.Distribution.GAUSSIAN);
+        float[] params = new float[JavaForwardPass.numParams(LAYER_SIZES)];
+        Random random = new Random(2);
+        int changed = 0;
+        for (int round = 0; round < 100; round++) {
+            Arrays.fill(params, 0);
+            engine.mutate(params, 0, 0.5, random);
+            for (float param : params) {
+                if (param != 0) {
+                    changed++;
+                }
+            }
+        }
+        double share = changed / (100.0 * params.length);
+        assertEquals(0.1, share, 0.005);
+    }
+
+    @Test
+    public void onlyTheNetworkAtTheOffsetChanges() {
+        MutationEngine engine = new MutationEngine(LAYER_SIZES, 1, MutationEngine.Distribution.UNIFORM);
+        int numParams = JavaForwardPass.numParams(LAYER_SIZES);
+        float[] params = new float[3 * numParams];
+        engine.mutate(params, numParams, 0.5, new Random(3));
+        for (int i = 0; i < params.length; i++) {
+            boolean inNetwork = i >= numParams && i < 2 * numParams;
+            assertEquals("parameter " + i, inNetwork, params[i] != 0);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package organisms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import neuralNetwork.BlobNeuralNetwork;
+
+// Removing a blob moves the last blob into its index. Every blob that is left has to keep its own
+// position, food, last action, network and random numbers through any mix of removes and adds
+public class BlobPopulationTest {
+
+    // what a blob should look like, kept next to the population and looked up by the blob's random state
+    private static class Expected {
+        int x, y, eaten, network;
+        byte lastAction;
+        long randomState;
+    }
+
+    @Test
+    public void blobsKeepTheirStateThroughRemovesAndAdds() {
+        Random random = new Random(42);
+        // small capacity so the arrays grow along the way
+        BlobPopulation blobs = new BlobPopulation(4);
+        BlobNeuralNetwork[] networks = new BlobNeuralNetwork[5];
+        for (int i = 0; i < networks.length; i++) {
+            networks[i] = new BlobNeuralNetwork(25, 18, 11, new Random(i));
+            assertEquals(i, blobs.addNetwork(networks[i]));
+        }
+
+        List<Expected> expected = new ArrayList<>();
+        long nextId = 1;
+        for (int i = 0; i < 50; i++) {
+            expected.add(addBlob(blobs, random, nextId++));
+        }
+        check(blobs, networks, expected);
+
+        for (int round = 0; round < 2000; round++) {
+            if (blobs.size > 0 && random.nextInt(3) > 0) {
+                int blob = random.nextInt(blobs.size);
+                expected.remove(find(expected, blobs.randomState[blob]));
+                blobs.swapRemove(blob);
+            } else {
+                expected.add(addBlob(blobs, random, nextId++));
+            }
+            // change the blobs that are left the way a step does, so stale copies would show
+            if (blobs.size > 0) {
+                int blob = random.nextInt(blobs.size);
+                Expected e = find(expected, blobs.randomState[blob]);
+                e.x = blobs.x[blob] = random.nextInt(501);
+                e.eaten = ++blobs.eaten[blob];
+                e.lastAction = blobs.lastAction[blob] = (byte) random.nextInt(11);
+            }
+            check(blobs, networks, expected);
+        }
+
+        // remove the last blob and the first blob until none are left
+        while (blobs.size > 0) {
+            int blob = blobs.size % 2 == 0 ? 0 : blobs.size - 1;
+            expected.remove(find(expected, blobs.randomState[blob]));
+            blobs.swapRemove(blob);
+            check(blobs, networks, expected);
+        }
+    }
+
+    @Test
+    public void newBlobsStartFresh() {
+        BlobPopulation blobs = new BlobPopulation(2);
+        int network = blobs.addNetwork(new BlobNeuralNetwork(25, 18, 11, new Random(1)));
+        int first = blobs.add(3, 4, network, 7);
+        blobs.eaten[first] = 5;
+        blobs.lastAction[first] = 2;
+        blobs.swapRemove(first);
+
+        // the new blob takes the index of the removed one and must not see its leftovers
+        int second = blobs.add(8, 9, network, 11);
+        assertEquals(first, second);
+        assertEquals(0, blobs.eaten[second]);
+        assertEquals(10, blobs.lastAction[second]);
+        assertEquals(11, blobs.randomState[second]);
+    }
+
+    @Test
+    public void clearDropsTheNetworks() {
+        BlobPopulation blobs = new BlobPopulation(2);
+        int network = blobs.addNetwork(new BlobNeuralNetwork(25, 18, 11, new Random(1)));
+        blobs.add(1, 1, network, 1);
+        int version = blobs.networkVersion;
+        blobs.clear();
+
+        assertEquals(0, blobs.size);
+        assertEquals(0, blobs.numNetworks);
+        assertNull(blobs.networks[network]);
+        assertEquals(version + 1, blobs.networkVersion);
+    }
+
+    private static Expected addBlob(BlobPopulation blobs, Random random, long id) {
+        Expected e = new Expected();
+        e.x = random.nextInt(501);
+        e.y = random.nextInt(501);
+        e.network = random.nextInt(blobs.numNetworks);
+        e.randomState = id;
+        int blob = blobs.add(e.x, e.y, e.network, e.randomState);
+        e.eaten = blobs.eaten[blob] = random.nextInt(4);
+        e.lastAction = blobs.lastAction[blob] = (byte) random.nextInt(11);
+        return e;
+    }
+
+    private static Expected find(List<Expected> expected, long randomState) {
+        for (Expected e : expected) {
+            if (e.randomState == randomState) {
+                return e;
+            }
+        }
+        throw new AssertionError("no blob with random state " + randomState);
+    }
+
+    private static void check(BlobPopulation blobs, BlobNeuralNetwork[] networks, List<Expected> expected) {
+        assertEquals(expected.size(), blobs.size);
+        Map<Long, Integer> indices = new HashMap<>();
+        for (int blob = 0; blob < blobs.size; blob++) {
+            assertNull("blob " + blob + " is in the population twice", indices.put(blobs.randomState[blob], blob));
+        }
+        for (Expected e : expected) {
+            Integer blob = indices.get(e.randomState);
+            if (blob == null) {
+                throw new AssertionError("blob " + e.randomState + " got lost");
+            }
+            assertEquals(e.x, blobs.x[blob]);
+            assertEquals(e.y, blobs.y[blob]);
+            assertEquals(e.eaten, blobs.eaten[blob]);
+            assertEquals(e.lastAction, blobs.lastAction[blob]);
+            assertEquals(e.network, blobs.networkIndex[blob]);
+            assertSame(networks[e.network], blobs.networkOf(blob));
+        }
+    }
+}
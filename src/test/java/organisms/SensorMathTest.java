@@ -0,0 +1,229 @@
+package organisms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import simulator.IntList;
+import simulator.SimulationConfig;
+import simulator.World;
+
+// The sensors look the Gaussian weights up by squared distance and compare squared distances instead
+// of calling sqrt, pow and exp. The rows have to be the same, bit for bit, as with the formulas
+public class SensorMathTest {
+
+    @Test
+    public void tablesMatchTheFormulas() {
+        for (long d2 = 0; d2 <= 20000; d2++) {
+            double distance = Math.sqrt(d2);
+            assertSameBits("weight of " + d2, (float) gaussian(distance), SensorMath.weight(d2));
+            assertSameBits("weighted distance of " + d2, (float) (distance * gaussian(distance)), SensorMath.weightedDistance(d2));
+        }
+    }
+
+    @Test
+    public void sensorRowsMatchTheFormulas() {
+        int weightedSensors = 0;
+        for (int seed = 1; seed <= 5; seed++) {
+            World world = clusteredWorld(seed);
+            int numInputs = world.config.numOfInputSensors;
+            float[] expected = new float[numInputs];
+            float[] actual = new float[numInputs];
+            for (int step = 0; step < 30; step++) {
+                for (int blob = 0; blob < world.blobs.size; blob++) {
+                    referenceInputVector(world, blob, expected);
+                    Blob.generateInputVector(world, blob, actual, 0);
+                    for (int i = 0; i < numInputs; i++) {
+                        assertSameBits("seed " + seed + " step " + step + " blob " + blob + " sensor " + i, expected[i], actual[i]);
+                    }
+                    // the direction and nearest sensors, which go through the tables
+                    for (int i : new int[]{0, 1, 2, 3, 4, 5, 6, 7, 12, 13}) {
+                        if (actual[i] != 0) {
+                            weightedSensors++;
+                        }
+                    }
+                }
+                world.step();
+            }
+            world.shutdown();
+        }
+        // the clusters have to put things close enough for the weights to matter
+        assertTrue("only " + weightedSensors + " weighted sensors were not 0", weightedSensors > 1000);
+    }
+
+    // Blobs and food in a few tight clusters, so many of them are within the few pixels where the
+    // Gaussian weights are not 0
+    static World clusteredWorld(long seed) {
+        SimulationConfig config = new SimulationConfig();
+        config.seed = seed;
+        config.mapSize = 200;
+        config.simulationThreads = 1;
+        World world = new World(config);
+        Random random = new Random(seed);
+
+        world.blobs.clear();
+        world.foods.clear();
+        int network = world.blobs.addNetwork(world.blobNetwork);
+        for (int cluster = 0; cluster < 5; cluster++) {
+            int centerX = random.nextInt(config.mapSize + 1);
+            int centerY = random.nextInt(config.mapSize + 1);
+            for (int i = 0; i < 8; i++) {
+                world.blobs.add(near(centerX, 6, config.mapSize, random), near(centerY, 6, config.mapSize, random), network, random.nextLong());
+            }
+            for (int i = 0; i < 12; i++) {
+                world.foods.add(near(centerX, 8, config.mapSize, random), near(centerY, 8, config.mapSize, random));
+            }
+        }
+        world.blobGrid.rebuild(world.blobs);
+        world.foodGrid.rebuild(world.foods);
+        return world;
+    }
+
+    private static int near(int center, int spread, int mapSize, Random random) {
+        return Math.max(0, Math.min(mapSize, center + random.nextInt(2 * spread + 1) - spread));
+    }
+
+    // Blob.generateInputVector as it was written with the floating point formulas
+    private static void referenceInputVector(World world, int blob, float[] sensors) {
+        int sensingRange = world.config.sensingRange;
+        int blobSize = world.config.blobSize;
+        int mapSize = world.config.mapSize;
+        BlobPopulation blobs = world.blobs;
+        Positions foods = world.foods;
+        int x = blobs.x[blob];
+        int y = blobs.y[blob];
+
+        float foodLeft = 0, foodRight = 0, foodTop = 0, foodBottom = 0;
+        float blobLeft = 0, blobRight = 0, blobTop = 0, blobBottom = 0;
+        float nearestFood = 0;
+        float nearestBlob = 0;
+        float foodAdjacent = 0;
+        float blobAdjacent = 0;
+        int trFoodDensity = 0, tlFoodDensity = 0, brFoodDensity = 0, blFoodDensity = 0;
+        int trBlobDensity = 0, tlBlobDensity = 0, brBlobDensity = 0, blBlobDensity = 0;
+        double normalizationFactor = 1.0 / sensingRange;
+
+        IntList nearbyFoods = new IntList();
+        IntList nearbyBlobs = new IntList();
+        world.foodGrid.queryRange(x, y, sensingRange, nearbyFoods);
+        world.blobGrid.queryRange(x, y, sensingRange, nearbyBlobs);
+        for (int i = 0; i < nearbyFoods.size(); i++) {
+            int food = nearbyFoods.get(i);
+            int foodX = foods.x[food];
+            int foodY = foods.y[food];
+            double distance = distance(x, y, foodX, foodY);
+            if (distance <= sensingRange) {
+                float weight = (float) gaussian(distance);
+                if (foodX < x && (x - foodX) <= sensingRange) {
+                    foodLeft = weight;
+                } else if (foodX > x && (foodX - x) <= sensingRange) {
+                    foodRight = weight;
+                } else if (foodY < y && (y - foodY) <= sensingRange) {
+                    foodTop = weight;
+                } else if (foodY > y && (foodY - y) <= sensingRange) {
+                    foodBottom = weight;
+                }
+                if (distance < nearestFood || nearestFood == 0) {
+                    nearestFood = (float) (distance * gaussian(distance));
+                }
+                if (foodX > x && foodY < y && foodX - x <= sensingRange && y - foodY <= sensingRange) {
+                    trFoodDensity++;
+                }
+                if (foodX < x && foodY < y && x - foodX <= sensingRange && y - foodY <= sensingRange) {
+                    tlFoodDensity++;
+                }
+                if (foodX > x && foodY > y && foodX - x <= sensingRange && foodY - y <= sensingRange) {
+                    brFoodDensity++;
+                }
+                if (foodX < x && foodY > y && x - foodX <= sensingRange && foodY - y <= sensingRange) {
+                    blFoodDensity++;
+                }
+            }
+            if (distance <= blobSize) {
+                foodAdjacent = 1;
+            }
+        }
+
+        for (int i = 0; i < nearbyBlobs.size(); i++) {
+            int other = nearbyBlobs.get(i);
+            int otherX = blobs.x[other];
+            int otherY = blobs.y[other];
+            double distance = distance(x, y, otherX, otherY);
+            if (other != blob && distance <= sensingRange) {
+                float weight = (float) gaussian(distance);
+                if (otherX < x && (x - otherX) <= sensingRange) {
+                    blobLeft = weight;
+                } else if (otherX > x && (otherX - x) <= sensingRange) {
+                    blobRight = weight;
+                } else if (otherY < y && (y - otherY) <= sensingRange) {
+                    blobTop = weight;
+                } else if (otherY > y && (otherY - y) <= sensingRange) {
+                    blobBottom = weight;
+                }
+                if (distance < nearestBlob || nearestBlob == 0) {
+                    nearestBlob = weight;
+                }
+                if (distance <= blobSize * 2) {
+                    blobAdjacent = 1;
+                }
+                if (otherX > x && otherY < y && otherX - x <= sensingRange && y - otherY <= sensingRange) {
+                    trBlobDensity++;
+                }
+                if (otherX < x && otherY < y && x - otherX <= sensingRange && y - otherY <= sensingRange) {
+                    tlBlobDensity++;
+                }
+                if (otherX > x && otherY > y && otherX - x <= sensingRange && otherY - y <= sensingRange) {
+                    brBlobDensity++;
+                }
+                if (otherX < x && otherY > y && x - otherX <= sensingRange && otherY - y <= sensingRange) {
+                    blBlobDensity++;
+                }
+            }
+        }
+
+        sensors[0] = foodLeft;
+        sensors[1] = foodRight;
+        sensors[2] = foodTop;
+        sensors[3] = foodBottom;
+        sensors[4] = blobLeft;
+        sensors[5] = blobRight;
+        sensors[6] = blobTop;
+        sensors[7] = blobBottom;
+        sensors[8] = y;
+        sensors[9] = mapSize - y;
+        sensors[10] = mapSize - x;
+        sensors[11] = x;
+        sensors[12] = nearestFood;
+        sensors[13] = nearestBlob;
+        sensors[14] = foodAdjacent;
+        sensors[15] = blobAdjacent;
+        sensors[16] = (float) (trFoodDensity * normalizationFactor);
+        sensors[17] = (float) (tlFoodDensity * normalizationFactor);
+        sensors[18] = (float) (brFoodDensity * normalizationFactor);
+        sensors[19] = (float) (blFoodDensity * normalizationFactor);
+        sensors[20] = (float) (trBlobDensity * normalizationFactor);
+        sensors[21] = (float) (tlBlobDensity * normalizationFactor);
+        sensors[22] = (float) (brBlobDensity * normalizationFactor);
+        sensors[23] = (float) (blBlobDensity * normalizationFactor);
+        sensors[24] = blobs.lastAction[blob];
+    }
+
+    // exp(-d^2 / (2 * 0.5^2)) written the way the sensors used to compute it
+    private static double gaussian(double distance) {
+        double sigma = 0.5;
+        double mu = 0.0;
+        double exponent = -Math.pow(distance - mu, 2) / (2 * Math.pow(sigma, 2));
+        return Math.exp(exponent);
+    }
+
+    private static double distance(int x1, int y1, int x2, int y2) {
+        return Math.sqrt(Math.pow(x1 - x2, 2) + Math.pow(y1 - y2, 2));
+    }
+
+    private static void assertSameBits(String message, float expected, float actual) {
+        assertEquals(message, Float.floatToIntBits(expected), Float.floatToIntBits(actual));
+    }
+}
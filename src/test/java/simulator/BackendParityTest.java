@@ -0,0 +1,111 @@
+package simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import neuralNetwork.BlobNeuralNetwork;
+import neuralNetwork.PopulationTensor;
+import neuralNetwork.QuantizedNetwork;
+import organisms.Blob;
+import organisms.BlobPopulation;
+
+// The JAVA backend is the reference. TENSOR runs the same float math per network, so it has to choose
+// the same action for every row. QUANTIZED rounds the weights to int8, so it may disagree, but rarely
+public class BackendParityTest {
+
+    private static final int SEEDS = 5;
+    private static final int GENERATIONS = 4;
+
+    // QUANTIZED picks another action for about 2 in 100 rows on these seeds
+    private static final double MAX_QUANTIZED_DISAGREEMENT = 0.05;
+
+    @Test
+    public void tensorAndQuantizedChooseTheSameActionsAsJava() {
+        long decisions = 0;
+        long quantizedDisagreements = 0;
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            World world = newWorld(seed, BlobNeuralNetwork.Backend.JAVA);
+            int numInputs = world.config.numOfInputSensors;
+            PopulationTensor tensor = new PopulationTensor(world.blobNetwork.getLayerSizes());
+
+            for (int generation = 0; generation < GENERATIONS; generation++) {
+                while (!world.isGenerationOver()) {
+                    BlobPopulation blobs = world.blobs;
+                    float[] rows = new float[blobs.size * numInputs];
+                    int[] javaActions = new int[blobs.size];
+                    int[] tensorActions = new int[blobs.size];
+                    for (int i = 0; i < blobs.size; i++) {
+                        Blob.generateInputVector(world, i, rows, i * numInputs);
+                        javaActions[i] = blobs.networkOf(i).predictAction(rows, i * numInputs);
+                    }
+
+                    tensor.pack(blobs.networks, blobs.numNetworks);
+                    tensor.predictActions(rows, blobs.networkIndex, 0, blobs.size, tensorActions);
+                    assertArrayEquals("seed " + seed + " generation " + generation + " step " + world.simulationStep,
+                            javaActions, tensorActions);
+
+                    for (int i = 0; i < blobs.size; i++) {
+                        int quantizedAction = QuantizedNetwork.of(blobs.networkOf(i)).predictAction(rows, i * numInputs);
+                        decisions++;
+                        if (quantizedAction != javaActions[i]) {
+                            quantizedDisagreements++;
+                        }
+                    }
+                    world.step();
+                }
+                nextGeneration(world);
+            }
+            world.shutdown();
+        }
+
+        assertTrue("only " + decisions + " decisions", decisions > 1000);
+        double disagreement = (double) quantizedDisagreements / decisions;
+        assertTrue("QUANTIZED chose another action for " + quantizedDisagreements + " of " + decisions + " rows",
+                disagreement <= MAX_QUANTIZED_DISAGREEMENT);
+    }
+
+    // Whole runs with the same seed end in the same world whether the steps decide with JAVA or TENSOR
+    @Test
+    public void tensorRunsRepeatJavaRuns() {
+        for (int seed = 1; seed <= SEEDS; seed++) {
+            World java = newWorld(seed, BlobNeuralNetwork.Backend.JAVA);
+            World tensor = newWorld(seed, BlobNeuralNetwork.Backend.TENSOR);
+            for (int generation = 0; generation < GENERATIONS; generation++) {
+                while (!java.isGenerationOver()) {
+                    java.step();
+                    tensor.step();
+                    assertArrayEquals("seed " + seed + " generation " + generation + " step " + java.simulationStep,
+                            java.actionCounts, tensor.actionCounts);
+                }
+                assertEquals(java.blobs.size, tensor.blobs.size);
+                for (int i = 0; i < java.blobs.size; i++) {
+                    assertEquals(java.blobs.x[i], tensor.blobs.x[i]);
+                    assertEquals(java.blobs.y[i], tensor.blobs.y[i]);
+                    assertEquals(java.blobs.eaten[i], tensor.blobs.eaten[i]);
+                }
+                nextGeneration(java);
+                nextGeneration(tensor);
+            }
+            java.shutdown();
+            tensor.shutdown();
+        }
+    }
+
+    private static World newWorld(long seed, BlobNeuralNetwork.Backend backend) {
+        SimulationConfig config = new SimulationConfig();
+        config.seed = seed;
+        config.mapSize = 200;
+        config.simulationThreads = 1;
+        config.backend = backend;
+        return new World(config);
+    }
+
+    private static void nextGeneration(World world) {
+        world.numbOfFoodLeft = world.foods.size;
+        world.createNewGeneration();
+        world.finishGeneration();
+    }
+}
@@ -0,0 +1,146 @@
+package simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import organisms.BlobPopulation;
+
+public class PopulationSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void float32SnapshotsLoadTheSameWorld() throws IOException {
+        World world = steppedWorld(7);
+        Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+        PopulationSnapshot.write(world, path, PopulationSnapshot.Encoding.FLOAT32);
+
+        World loaded = new World(world.config);
+        PopulationSnapshot.read(path, loaded);
+
+        assertSameWorld(world, loaded);
+        for (int i = 0; i < world.blobs.numNetworks; i++) {
+            assertArrayEquals(world.blobs.networks[i].getParams(), loaded.blobs.networks[i].getParams(), 0f);
+        }
+        world.shutdown();
+        loaded.shutdown();
+    }
+
+    @Test
+    public void int8SnapshotsLoadRoundedNetworks() throws IOException {
+        World world = steppedWorld(8);
+        Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+        PopulationSnapshot.write(world, path, PopulationSnapshot.Encoding.INT8);
+
+        World loaded = new World(world.config);
+        PopulationSnapshot.read(path, loaded);
+
+        assertSameWorld(world, loaded);
+        for (int i = 0; i < world.blobs.numNetworks; i++) {
+            float[] expected = world.blobs.networks[i].getParams();
+            float[] actual = loaded.blobs.networks[i].getParams();
+            float largest = 0;
+            for (float param : expected) {
+                largest = Math.max(largest, Math.abs(param));
+            }
+            // one scale per layer, so no weight is off by more than half a step of the largest one
+            for (int p = 0; p < expected.length; p++) {
+                assertEquals(expected[p], actual[p], largest / 127);
+            }
+        }
+        world.shutdown();
+        loaded.shutdown();
+    }
+
+    @Test
+    public void otherVersionsAreRejected() throws IOException {
+        World world = steppedWorld(9);
+        Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+        PopulationSnapshot.write(world, path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.BYTES, 2);
+        Files.write(path, bytes);
+        try {
+            PopulationSnapshot.read(path, new World(world.config));
+            fail("a snapshot with another version was loaded");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("version 2"));
+        }
+        world.shutdown();
+    }
+
+    @Test
+    public void truncatedSnapshotsAreRejected() throws IOException {
+        World world = steppedWorld(10);
+        Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+        PopulationSnapshot.write(world, path);
+
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+        try {
+            PopulationSnapshot.read(path, new World(world.config));
+            fail("a truncated snapshot was loaded");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("truncated"));
+        }
+        world.shutdown();
+    }
+
+    // A small world a few steps into its first generation, so positions, actions and counters are not the initial ones
+    private static World steppedWorld(long seed) {
+        SimulationConfig config = new SimulationConfig();
+        config.seed = seed;
+        config.mapSize = 200;
+        config.simulationThreads = 1;
+        World world = new World(config);
+        for (int step = 0; step < 5; step++) {
+            world.step();
+        }
+        // as after a few mutated clones
+        world.mutationAmount = 3;
+        return world;
+    }
+
+    private static void assertSameWorld(World expected, World actual) {
+        BlobPopulation blobs = expected.blobs;
+        BlobPopulation loaded = actual.blobs;
+        assertEquals(blobs.size, loaded.size);
+        assertEquals(blobs.numNetworks, loaded.numNetworks);
+        for (int i = 0; i < blobs.size; i++) {
+            assertEquals(blobs.x[i], loaded.x[i]);
+            assertEquals(blobs.y[i], loaded.y[i]);
+            assertEquals(blobs.eaten[i], loaded.eaten[i]);
+            assertEquals(blobs.lastAction[i], loaded.lastAction[i]);
+            assertEquals(blobs.networkIndex[i], loaded.networkIndex[i]);
+            assertEquals(blobs.randomState[i], loaded.randomState[i]);
+        }
+        assertEquals(expected.foods.size, actual.foods.size);
+        for (int i = 0; i < expected.foods.size; i++) {
+            assertEquals(expected.foods.x[i], actual.foods.x[i]);
+            assertEquals(expected.foods.y[i], actual.foods.y[i]);
+        }
+        assertEquals(expected.random.getState(), actual.random.getState());
+        assertEquals(expected.currentGeneration, actual.currentGeneration);
+        assertEquals(expected.simulationStep, actual.simulationStep);
+        assertEquals(expected.numOfStartingBlobs, actual.numOfStartingBlobs);
+        assertEquals(expected.stepNanos, actual.stepNanos);
+        assertEquals(expected.inferenceNanos, actual.inferenceNanos);
+        assertArrayEquals(expected.actionCounts, actual.actionCounts);
+        assertEquals(expected.mutationAmount, actual.mutationAmount);
+    }
+}
@@ -0,0 +1,187 @@
+package simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import neuralNetwork.MutationEngine;
+import organisms.Blob;
+import organisms.BlobPopulation;
+
+// A run that is stopped, written to a snapshot and resumed in a new world has to end exactly where the
+// same run ends without stopping
+public class ResumeTest {
+
+    private static final int TOTAL_STEPS = 400;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumedRunsRepeatStraightRuns() throws IOException {
+        for (int seed = 1; seed <= 3; seed++) {
+            for (int stopAt = 10; stopAt < TOTAL_STEPS; stopAt += 47) {
+                checkResume(config(seed), stopAt);
+            }
+        }
+    }
+
+    // crossover and the sparse mutation use the world's random numbers and the survivors differently
+    @Test
+    public void resumedRunsWithCrossoverRepeatStraightRuns() throws IOException {
+        for (int seed = 1; seed <= 3; seed++) {
+            SimulationConfig config = config(seed);
+            config.crossoverRate = 0.5;
+            config.mutationDistribution = MutationEngine.Distribution.GAUSSIAN;
+            config.mutationChangeAmount = 0.5;
+            config.mutatedLayers = null;
+            config.compoundMutationAmount = false;
+            checkResume(config, 130);
+        }
+    }
+
+    // A blob that leaves its cell and comes back used to be put at the end of the cell. The last blob on
+    // the left of another one decides its sensor, so the order has to be the same as in a rebuilt grid
+    @Test
+    public void sensorsDoNotDependOnTheHistoryOfTheGrid() {
+        World world = new World(config(1));
+        world.blobs.clear();
+        int network = world.blobs.addNetwork(world.blobNetwork);
+        int farther = world.blobs.add(97, 100, network, 1);
+        world.blobs.add(98, 100, network, 2);
+        int observer = world.blobs.add(100, 100, network, 3);
+        world.blobGrid.rebuild(world.blobs);
+
+        float[] expected = new float[world.config.numOfInputSensors];
+        Blob.generateInputVector(world, observer, expected, 0);
+
+        world.blobs.x[farther] = 30;
+        world.blobGrid.move(farther, 97, 100);
+        world.blobs.x[farther] = 97;
+        world.blobGrid.move(farther, 30, 100);
+
+        float[] actual = new float[world.config.numOfInputSensors];
+        Blob.generateInputVector(world, observer, actual, 0);
+        assertArrayEquals(expected, actual, 0f);
+        world.shutdown();
+    }
+
+    private void checkResume(SimulationConfig config, int stopAt) throws IOException {
+        World straight = clusteredWorld(config);
+        run(straight, TOTAL_STEPS);
+
+        World first = clusteredWorld(config);
+        run(first, stopAt);
+        assertTrue("seed " + config.seed + " has no blobs left at step " + stopAt, first.blobs.size > 0);
+        Path path = folder.getRoot().toPath().resolve("snapshot.bin");
+        PopulationSnapshot.write(first, path, PopulationSnapshot.Encoding.FLOAT32);
+
+        World resumed = new World(config);
+        PopulationSnapshot.read(path, resumed);
+        assertSameSensors("seed " + config.seed + " stopped at " + stopAt, first, resumed);
+        first.shutdown();
+        run(resumed, TOTAL_STEPS - stopAt);
+
+        assertSameWorld("seed " + config.seed + " stopped at " + stopAt, straight, resumed);
+        straight.shutdown();
+        resumed.shutdown();
+    }
+
+    private static SimulationConfig config(long seed) {
+        SimulationConfig config = new SimulationConfig();
+        config.seed = seed;
+        config.mapSize = 200;
+        config.gridCellSize = 10;
+        config.blobAmount = 30;
+        // only the close neighbours, whose Gaussian weights are not 0
+        config.sensingRange = 8;
+        config.simulationThreads = 1;
+        return config;
+    }
+
+    // The blobs and food of a new world moved into a few tight clusters in the left quarter of the map, where
+    // blobs survive. Close neighbours are what the Gaussian sensors see, and small cells make blobs change
+    // cells often, so the sensors depend on the order the grid keeps its cells in
+    private static World clusteredWorld(SimulationConfig config) {
+        World world = new World(config);
+        Random random = new Random(config.seed);
+        int[] centerX = new int[3];
+        int[] centerY = new int[3];
+        for (int c = 0; c < centerX.length; c++) {
+            centerX[c] = 10 + random.nextInt(config.mapSize / 4 - 20);
+            centerY[c] = 10 + random.nextInt(config.mapSize - 20);
+        }
+        for (int i = 0; i < world.blobs.size; i++) {
+            int c = i % centerX.length;
+            world.blobs.x[i] = centerX[c] + random.nextInt(11) - 5;
+            world.blobs.y[i] = centerY[c] + random.nextInt(11) - 5;
+        }
+        for (int i = 0; i < world.foods.size; i++) {
+            int c = i % centerX.length;
+            world.foods.x[i] = centerX[c] + random.nextInt(17) - 8;
+            world.foods.y[i] = centerY[c] + random.nextInt(17) - 8;
+        }
+        world.blobGrid.rebuild(world.blobs);
+        world.foodGrid.rebuild(world.foods);
+        return world;
+    }
+
+    // The steps of HeadlessMain, a new generation whenever one is over
+    private static void run(World world, int steps) {
+        for (int i = 0; i < steps; i++) {
+            world.step();
+            if (world.isGenerationOver()) {
+                world.numbOfFoodLeft = world.foods.size;
+                world.createNewGeneration();
+                world.finishGeneration();
+            }
+        }
+    }
+
+    // The resumed world rebuilt its grids from scratch, the stopped one got its grids through the whole run
+    private static void assertSameSensors(String message, World expected, World actual) {
+        int numInputs = expected.config.numOfInputSensors;
+        float[] expectedRow = new float[numInputs];
+        float[] actualRow = new float[numInputs];
+        for (int i = 0; i < expected.blobs.size; i++) {
+            Blob.generateInputVector(expected, i, expectedRow, 0);
+            Blob.generateInputVector(actual, i, actualRow, 0);
+            assertArrayEquals(message + " blob " + i, expectedRow, actualRow, 0f);
+        }
+    }
+
+    private static void assertSameWorld(String message, World expected, World actual) {
+        assertEquals(message, expected.currentGeneration, actual.currentGeneration);
+        assertEquals(message, expected.simulationStep, actual.simulationStep);
+        assertEquals(message, expected.random.getState(), actual.random.getState());
+        assertEquals(message, expected.mutationAmount, actual.mutationAmount);
+        assertArrayEquals(message, expected.actionCounts, actual.actionCounts);
+
+        BlobPopulation blobs = expected.blobs;
+        BlobPopulation other = actual.blobs;
+        assertEquals(message, blobs.size, other.size);
+        for (int i = 0; i < blobs.size; i++) {
+            String blob = message + " blob " + i;
+            assertEquals(blob, blobs.x[i], other.x[i]);
+            assertEquals(blob, blobs.y[i], other.y[i]);
+            assertEquals(blob, blobs.eaten[i], other.eaten[i]);
+            assertEquals(blob, blobs.lastAction[i], other.lastAction[i]);
+            assertEquals(blob, blobs.randomState[i], other.randomState[i]);
+            assertArrayEquals(blob, blobs.networkOf(i).getParams(), other.networkOf(i).getParams(), 0f);
+        }
+
+        assertEquals(message, expected.foods.size, actual.foods.size);
+        for (int i = 0; i < expected.foods.size; i++) {
+            assertEquals(message + " food " + i, expected.foods.x[i], actual.foods.x[i]);
+            assertEquals(message + " food " + i, expected.foods.y[i], actual.foods.y[i]);
+        }
+    }
+}
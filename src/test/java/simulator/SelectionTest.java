@@ -0,0 +1,47 @@
+package simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SelectionTest {
+
+    private static final double[] FITNESS = {3, 0.5, 2, -1, 1};
+
+    @Test
+    public void excludedCandidateIsNeverPicked() {
+        Random random = new Random(1);
+        for (Selection.Method method : Selection.Method.values()) {
+            Selection selection = new Selection(method, 3);
+            for (int exclude = 0; exclude < FITNESS.length; exclude++) {
+                int[] picks = new int[FITNESS.length];
+                for (int i = 0; i < 2000; i++) {
+                    int picked = selection.select(FITNESS, FITNESS.length, exclude, random);
+                    assertNotEquals(method + " picked the excluded candidate", exclude, picked);
+                    picks[picked]++;
+                }
+                // the fittest candidate that is left is picked more than any other
+                int fittest = exclude == 0 ? 2 : 0;
+                for (int i = 0; i < FITNESS.length; i++) {
+                    assertTrue(method + " excluding " + exclude, i == fittest || picks[i] < picks[fittest]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void twoCandidatesLeaveOnlyTheOther() {
+        Random random = new Random(2);
+        for (Selection.Method method : Selection.Method.values()) {
+            Selection selection = new Selection(method, 3);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(1, selection.select(FITNESS, 2, 0, random));
+                assertEquals(0, selection.select(FITNESS, 2, 1, random));
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package simulator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import organisms.Positions;
+
+// The grid has to find exactly what a loop over every entry finds, whatever happened to the entries
+// before, and in an order that only depends on where the entries are
+public class SpatialGridTest {
+
+    private static final int MAP_SIZE = 200;
+    private static final int CELL_SIZE = 20;
+
+    @Test
+    public void queryRangeFindsWhatALoopFinds() {
+        Random random = new Random(1);
+        Positions positions = new Positions(4);
+        for (int i = 0; i < 300; i++) {
+            positions.add(coordinate(random), coordinate(random));
+        }
+        SpatialGrid grid = new SpatialGrid(MAP_SIZE, CELL_SIZE, positions);
+        grid.rebuild(positions);
+
+        IntList found = new IntList();
+        for (int query = 0; query < 2000; query++) {
+            // points up to one pixel outside the map, as while a blob moves, and ranges over many cells
+            int x = random.nextInt(MAP_SIZE + 3) - 1;
+            int y = random.nextInt(MAP_SIZE + 3) - 1;
+            int range = random.nextInt(3 * CELL_SIZE);
+            grid.queryRange(x, y, range, found);
+            assertArrayEquals("query " + x + ", " + y + " range " + range, inRange(positions, x, y, range), sorted(found));
+        }
+    }
+
+    @Test
+    public void movesAddsAndRemovesKeepTheGridRight() {
+        Random random = new Random(2);
+        Positions positions = new Positions(4);
+        SpatialGrid grid = new SpatialGrid(MAP_SIZE, CELL_SIZE, positions);
+        for (int i = 0; i < 100; i++) {
+            grid.add(positions.add(coordinate(random), coordinate(random)));
+        }
+
+        for (int round = 0; round < 5000; round++) {
+            int action = random.nextInt(10);
+            if (action < 7 && positions.size > 0) {
+                // a step of one pixel in any direction, clamped to the map like a blob, or a jump
+                int index = random.nextInt(positions.size);
+                int oldX = positions.x[index];
+                int oldY = positions.y[index];
+                if (action < 5) {
+                    positions.x[index] = clamp(oldX + random.nextInt(3) - 1);
+                    positions.y[index] = clamp(oldY + random.nextInt(3) - 1);
+                } else {
+                    positions.x[index] = coordinate(random);
+                    positions.y[index] = coordinate(random);
+                }
+                grid.move(index, oldX, oldY);
+            } else if (action < 9 && positions.size > 0) {
+                // a swap-remove the way World removes blobs and food
+                int index = random.nextInt(positions.size);
+                grid.remove(index);
+                int last = positions.size - 1;
+                positions.swapRemove(index);
+                if (index != last) {
+                    grid.renumber(last, index);
+                }
+            } else {
+                grid.add(positions.add(coordinate(random), coordinate(random)));
+            }
+
+            if (round % 10 == 0) {
+                assertSameAsRebuilt(positions, grid, random);
+            }
+        }
+    }
+
+    @Test
+    public void pointsOutsideTheMapUseTheEdgeCells() {
+        Positions positions = new Positions(4);
+        int corner = positions.add(0, 0);
+        int farCorner = positions.add(MAP_SIZE, MAP_SIZE);
+        int edge = positions.add(0, MAP_SIZE / 2);
+        SpatialGrid grid = new SpatialGrid(MAP_SIZE, CELL_SIZE, positions);
+        grid.rebuild(positions);
+
+        IntList found = new IntList();
+        grid.queryRange(-1, -1, 2, found);
+        assertArrayEquals(new int[]{corner}, sorted(found));
+        grid.queryRange(MAP_SIZE + 1, MAP_SIZE + 1, 2, found);
+        assertArrayEquals(new int[]{farCorner}, sorted(found));
+        grid.queryRange(-1, MAP_SIZE / 2, 1, found);
+        assertArrayEquals(new int[]{edge}, sorted(found));
+
+        // a blob that just stepped off the map checks for collisions before it is clamped back
+        assertTrue(grid.anyCloserThan(-1, 1, 3, -1));
+        assertFalse(grid.anyCloserThan(-1, 1, 3, corner));
+        assertTrue(grid.anyCloserThan(MAP_SIZE + 1, MAP_SIZE, 2, -1));
+        assertFalse(grid.anyCloserThan(MAP_SIZE + 1, MAP_SIZE, 1, -1));
+    }
+
+    @Test
+    public void removingKeepsTheRestOfTheCellInOrder() {
+        Positions positions = new Positions(4);
+        SpatialGrid grid = new SpatialGrid(MAP_SIZE, CELL_SIZE, positions);
+        for (int i = 0; i < 6; i++) {
+            grid.add(positions.add(5 + i, 5));
+        }
+        // entries moved in from other cells go to their place by index, not to the end
+        positions.add(50, 50);
+        grid.add(6);
+        positions.x[6] = 12;
+        positions.y[6] = 5;
+        grid.move(6, 50, 50);
+        positions.x[0] = 50;
+        grid.move(0, 5, 5);
+        positions.x[0] = 4;
+        grid.move(0, 50, 5);
+
+        IntList found = new IntList();
+        grid.queryRange(5, 5, 10, found);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, toArray(found));
+
+        grid.remove(2);
+        grid.remove(4);
+        grid.queryRange(5, 5, 10, found);
+        assertArrayEquals(new int[]{0, 1, 3, 5, 6}, toArray(found));
+    }
+
+    // Every query of the grid has to return the same entries in the same order as a grid built from
+    // scratch, and the same entries as a loop over all of them
+    private static void assertSameAsRebuilt(Positions positions, SpatialGrid grid, Random random) {
+        SpatialGrid rebuilt = new SpatialGrid(MAP_SIZE, CELL_SIZE, positions);
+        rebuilt.rebuild(positions);
+        IntList found = new IntList();
+        IntList expected = new IntList();
+        for (int query = 0; query < 20; query++) {
+            int x = random.nextInt(MAP_SIZE + 3) - 1;
+            int y = random.nextInt(MAP_SIZE + 3) - 1;
+            int range = random.nextInt(3 * CELL_SIZE);
+            grid.queryRange(x, y, range, found);
+            rebuilt.queryRange(x, y, range, expected);
+            assertArrayEquals(toArray(expected), toArray(found));
+            assertArrayEquals(inRange(positions, x, y, range), sorted(found));
+        }
+        // an empty range still finds entries on the query point
+        if (positions.size > 0) {
+            grid.queryRange(positions.x[0], positions.y[0], 0, found);
+            assertTrue(Arrays.binarySearch(sorted(found), 0) >= 0);
+        }
+    }
+
+    private static int[] inRange(Positions positions, int x, int y, int range) {
+        IntList matches = new IntList();
+        for (int i = 0; i < positions.size; i++) {
+            long dx = positions.x[i] - x;
+            long dy = positions.y[i] - y;
+            if (dx * dx + dy * dy <= (long) range * range) {
+                matches.add(i);
+            }
+        }
+        return toArray(matches);
+    }
+
+    private static int[] sorted(IntList list) {
+        int[] items = toArray(list);
+        Arrays.sort(items);
+        return items;
+    }
+
+    private static int[] toArray(IntList list) {
+        int[] items = new int[list.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = list.get(i);
+        }
+        return items;
+    }
+
+    // mostly anywhere, sometimes right on an edge of the map or of a cell
+    private static int coordinate(Random random) {
+        int kind = random.nextInt(10);
+        if (kind == 0) {
+            return random.nextBoolean() ? 0 : MAP_SIZE;
+        }
+        if (kind == 1) {
+            return clamp(random.nextInt(MAP_SIZE / CELL_SIZE + 1) * CELL_SIZE - random.nextInt(2));
+        }
+        return random.nextInt(MAP_SIZE + 1);
+    }
+
+    private static int clamp(int coordinate) {
+        return Math.max(0, Math.min(MAP_SIZE, coordinate));
+    }
+}